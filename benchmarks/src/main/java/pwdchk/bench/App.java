@@ -0,0 +1,83 @@
+package pwdchk.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Method handles into the application classes. They live in the unnamed package, which Java code
+ * in a named package (as JMH requires) cannot import; static final handles are constant-folded by
+ * the JIT, so calls through them cost the same as direct calls.
+ */
+final class App {
+    static final MethodHandle NEW_SCORER;         // () -> PasswordScorer
+    static final MethodHandle SCAN;               // (PasswordScorer, CharSequence) -> Features
+    static final MethodHandle SCORE;              // (Features) -> int
+    static final MethodHandle ENTROPY;            // (Features) -> double
+    static final MethodHandle SEQUENCE;           // (Features) -> boolean
+    static final MethodHandle SUGGESTION_CODES;   // (Features, int) -> int
+    static final MethodHandle FORMAT_SUGGESTIONS; // (int) -> String
+
+    static final MethodHandle NEW_ESTIMATOR;      // () -> PatternEstimator
+    static final MethodHandle ESTIMATE;           // (PatternEstimator, CharSequence) -> double
+
+    static final MethodHandle NEW_GENERATOR;      // () -> PasswordGenerator
+    static final MethodHandle FILL;               // (PasswordGenerator, char[], int, int) -> void
+    static final MethodHandle GENERATE_MAX;       // (PasswordGenerator, int) -> String
+    static final MethodHandle GENERATE_BULK;      // (long, int, int, OutputStream) -> void
+
+    static final MethodHandle NEW_CLASS_SCANNER;  // () -> ClassScanner, vector when available
+    static final MethodHandle SCALAR_CLASS_SCANNER; // () -> ClassScanner
+    static final MethodHandle CLASS_SCANNER_NAME; // (ClassScanner) -> String
+    static final MethodHandle CLASS_SCAN;         // (ClassScanner, byte[], int[], int[], int, int[]) -> void
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> scorer = Class.forName("PasswordScorer");
+            Class<?> features = Class.forName("PasswordScorer$Features");
+            Class<?> generator = Class.forName("PasswordGenerator");
+            Class<?> estimator = Class.forName("PatternEstimator");
+            Class<?> classScanner = Class.forName("ClassScanner");
+
+            NEW_SCORER = erase(lookup.findConstructor(scorer, MethodType.methodType(void.class)));
+            SCAN = erase(lookup.findVirtual(scorer, "scan", MethodType.methodType(features, CharSequence.class)));
+            SCORE = erase(lookup.findStatic(scorer, "score", MethodType.methodType(int.class, features)));
+            ENTROPY = erase(lookup.findStatic(scorer, "entropy", MethodType.methodType(double.class, features)));
+            SEQUENCE = erase(lookup.findGetter(features, "sequence", boolean.class));
+            SUGGESTION_CODES = erase(lookup.findStatic(scorer, "suggestionCodes", MethodType.methodType(int.class, features, int.class)));
+            FORMAT_SUGGESTIONS = lookup.findStatic(scorer, "formatSuggestions", MethodType.methodType(String.class, int.class));
+
+            NEW_ESTIMATOR = erase(lookup.findConstructor(estimator, MethodType.methodType(void.class)));
+            ESTIMATE = erase(lookup.findVirtual(estimator, "estimate", MethodType.methodType(double.class, CharSequence.class)));
+
+            NEW_GENERATOR = erase(lookup.findConstructor(generator, MethodType.methodType(void.class)));
+            FILL = erase(lookup.findVirtual(generator, "fill", MethodType.methodType(void.class, char[].class, int.class, int.class)));
+            GENERATE_MAX = erase(lookup.findVirtual(generator, "generateMaxStrength", MethodType.methodType(String.class, int.class)));
+            GENERATE_BULK = lookup.findStatic(generator, "generateBulk",
+                    MethodType.methodType(void.class, long.class, int.class, int.class, java.io.OutputStream.class));
+
+            NEW_CLASS_SCANNER = erase(lookup.findStatic(classScanner, "create", MethodType.methodType(classScanner)));
+            SCALAR_CLASS_SCANNER = erase(lookup.findStatic(classScanner, "scalar", MethodType.methodType(classScanner)));
+            CLASS_SCANNER_NAME = erase(lookup.findVirtual(classScanner, "name", MethodType.methodType(String.class)));
+            CLASS_SCAN = erase(lookup.findVirtual(classScanner, "scan",
+                    MethodType.methodType(void.class, byte[].class, int[].class, int[].class, int.class, int[].class)));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // Replaces application class types with Object so call sites can use invokeExact
+    private static MethodHandle erase(MethodHandle mh) {
+        MethodType t = mh.type();
+        for (int i = 0; i < t.parameterCount(); i++)
+            if (!t.parameterType(i).isPrimitive() && t.parameterType(i).getPackageName().isEmpty())
+                t = t.changeParameterType(i, Object.class);
+        if (!t.returnType().isPrimitive() && t.returnType().getPackageName().isEmpty())
+            t = t.changeReturnType(Object.class);
+        return mh.asType(t);
+    }
+
+    private App() {
+    }
+}
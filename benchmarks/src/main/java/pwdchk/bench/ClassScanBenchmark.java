@@ -0,0 +1,64 @@
+package pwdchk.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk character-class scan of a batch-audit slice: 4,096 newline-separated passwords in one
+ * byte buffer, classified by the scalar scanner or the Vector API one. Reported per password.
+ *
+ * The fork adds {@code jdk.incubator.vector}; {@code vector} fails fast if the JVM still hands
+ * back the scalar scanner.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class ClassScanBenchmark {
+
+    private static final String FULL = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789!@#$%^&*()-_=+[]{};:,.<>?/";
+    private static final int PASSWORDS = 4096;
+
+    @Param({"scalar", "vector"})
+    public String scanner;
+
+    @Param({"8", "12", "26"})
+    public int length;
+
+    private Object impl;
+    private byte[] buf;
+    private final int[] starts = new int[PASSWORDS];
+    private final int[] ends = new int[PASSWORDS];
+    private final int[] out = new int[PASSWORDS];
+
+    @Setup
+    public void setup() throws Throwable {
+        impl = scanner.equals("scalar") ? (Object) App.SCALAR_CLASS_SCANNER.invokeExact() : (Object) App.NEW_CLASS_SCANNER.invokeExact();
+        String name = (String) App.CLASS_SCANNER_NAME.invokeExact(impl);
+        if (scanner.equals("vector") && !name.startsWith("vector"))
+            throw new IllegalStateException("Vector API unavailable, got " + name);
+
+        // Lengths vary around the parameter, as in a real list
+        Random r = new Random(42);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < PASSWORDS; i++) {
+            starts[i] = sb.length();
+            int n = Math.max(1, length - 3 + r.nextInt(7));
+            for (int j = 0; j < n; j++) sb.append(FULL.charAt(r.nextInt(FULL.length())));
+            ends[i] = sb.length();
+            sb.append('\n');
+        }
+        buf = sb.toString().getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PASSWORDS)
+    public int[] scan() throws Throwable {
+        App.CLASS_SCAN.invokeExact(impl, buf, starts, ends, PASSWORDS, out);
+        return out;
+    }
+}
@@ -0,0 +1,46 @@
+package pwdchk.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/** Max-strength generator: single password (GUI's fixed length of 26) and bulk provisioning. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GeneratorBenchmark {
+
+    private static final int LENGTH = 26;
+    private static final int BULK = 10_000;
+
+    private Object generator;
+    private final char[] buf = new char[LENGTH];
+
+    @Setup
+    public void setup() throws Throwable {
+        generator = (Object) App.NEW_GENERATOR.invokeExact();
+    }
+
+    /** In-place construction into a reusable buffer (no String). */
+    @Benchmark
+    public char[] fill() throws Throwable {
+        App.FILL.invokeExact(generator, buf, 0, LENGTH);
+        return buf;
+    }
+
+    @Benchmark
+    public String generateMaxStrengthPassword() throws Throwable {
+        return (String) App.GENERATE_MAX.invokeExact(generator, LENGTH);
+    }
+
+    /** {@value #BULK} passwords through the parallel bulk API, discarding the output. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void generateBulk() throws Throwable {
+        App.GENERATE_BULK.invokeExact((long) BULK, LENGTH, Runtime.getRuntime().availableProcessors(), OutputStream.nullOutputStream());
+    }
+}
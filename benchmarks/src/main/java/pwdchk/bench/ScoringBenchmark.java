@@ -0,0 +1,84 @@
+package pwdchk.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scoring hot paths across length buckets and character mixes.
+ *
+ * Run with the GC profiler to see allocations per op:
+ * {@code java -jar benchmarks/target/benchmarks.jar ScoringBenchmark -prof gc}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ScoringBenchmark {
+
+    private static final String LOWER = "abcdefghijklmnopqrstuvwxyz";
+    private static final String ALNUM = LOWER + "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    private static final String FULL = ALNUM + "!@#$%^&*()-_=+[]{};:,.<>?/";
+
+    @Param({"8", "26", "256"})
+    public int length;
+
+    @Param({"lower", "alnum", "full"})
+    public String mix;
+
+    private final String[] passwords = new String[64];
+    private int next;
+    private Object scorer;
+    private Object estimator;
+
+    @Setup
+    public void setup() throws Throwable {
+        String alphabet = mix.equals("lower") ? LOWER : mix.equals("alnum") ? ALNUM : FULL;
+        Random r = new Random(42);
+        for (int i = 0; i < passwords.length; i++) {
+            StringBuilder sb = new StringBuilder(length);
+            for (int j = 0; j < length; j++) sb.append(alphabet.charAt(r.nextInt(alphabet.length())));
+            passwords[i] = sb.toString();
+        }
+        scorer = (Object) App.NEW_SCORER.invokeExact();
+        estimator = (Object) App.NEW_ESTIMATOR.invokeExact();
+    }
+
+    private CharSequence nextPassword() {
+        return passwords[next++ & (passwords.length - 1)];
+    }
+
+    @Benchmark
+    public int computeScore() throws Throwable {
+        Object f = (Object) App.SCAN.invokeExact(scorer, nextPassword());
+        return (int) App.SCORE.invokeExact(f);
+    }
+
+    @Benchmark
+    public double estimateEntropy() throws Throwable {
+        Object f = (Object) App.SCAN.invokeExact(scorer, nextPassword());
+        return (double) App.ENTROPY.invokeExact(f);
+    }
+
+    @Benchmark
+    public boolean containsSequence() throws Throwable {
+        Object f = (Object) App.SCAN.invokeExact(scorer, nextPassword());
+        return (boolean) App.SEQUENCE.invokeExact(f);
+    }
+
+    @Benchmark
+    public String makeSuggestions() throws Throwable {
+        Object f = (Object) App.SCAN.invokeExact(scorer, nextPassword());
+        int score = (int) App.SCORE.invokeExact(f);
+        int codes = (int) App.SUGGESTION_CODES.invokeExact(f, score);
+        return (String) App.FORMAT_SUGGESTIONS.invokeExact(codes);
+    }
+
+    @Benchmark
+    public double estimateGuesses() throws Throwable {
+        return (double) App.ESTIMATE.invokeExact(estimator, nextPassword());
+    }
+}
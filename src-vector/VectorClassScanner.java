@@ -0,0 +1,139 @@
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link ClassScanner} on the incubating Vector API. The buffer is walked one vector of bytes at a
+ * time, independent of where passwords begin and end: lane-parallel compares classify every byte
+ * (range tests for the classes, the top bit for non-ASCII, the vector against itself loaded one and
+ * two bytes earlier for the repeat and sequence rules) into a per-byte flag, and each password is
+ * then an OR reduction over its own lanes. No operation is masked: at the ends of the buffer the
+ * bytes are first copied into a zero-padded scratch array (see {@link #classifyEdge}), and the
+ * per-password reduction clears its tail lanes with an AND (see {@link #or}).
+ *
+ * Lives in {@code src-vector/} because it needs {@code --add-modules jdk.incubator.vector} both to
+ * compile and to run; {@link ClassScanner#create()} only loads it when that module is present.
+ */
+final class VectorClassScanner extends ClassScanner {
+
+    private static final VectorSpecies<Byte> S = ByteVector.SPECIES_PREFERRED;
+    private static final int L = S.length();
+
+    // Per-byte flags: the ClassScanner class bits, plus TRIPLE_BITS (REPEAT / SEQUENCE, which only
+    // count from the third byte of a password) and BREAK for '\r' / '\n'
+    private static final int TRIPLE_BITS = REPEAT | SEQUENCE;
+    private static final int BREAK = 0x80;
+
+    private static final ThreadLocal<byte[]> FLAGS = ThreadLocal.withInitial(() -> new byte[0]);
+    private static final ThreadLocal<byte[]> EDGE = ThreadLocal.withInitial(() -> new byte[L + 2]);
+
+    // L lanes of -1 then L of 0: the vector at offset L - n keeps the first n lanes of whatever it is ANDed with
+    private static final byte[] PREFIX = new byte[2 * L];
+
+    static {
+        java.util.Arrays.fill(PREFIX, 0, L, (byte) -1);
+    }
+
+    @Override
+    public String name() {
+        return "vector-" + S.vectorBitSize();
+    }
+
+    @Override
+    public void scan(byte[] buf, int[] starts, int[] ends, int count, int[] out) {
+        if (count == 0) return;
+        int from = starts[0], to = ends[count - 1];
+        byte[] flags = FLAGS.get();
+        if (flags.length < to + L) FLAGS.set(flags = new byte[Math.max(to + L, flags.length * 2)]);
+        classify(buf, from, to, flags);
+
+        for (int p = 0; p < count; p++) {
+            int lo = starts[p], hi = ends[p];
+            int bits = 0;
+            for (int i = lo + 2; i < hi; i += L) bits |= or(flags, i, hi);
+            for (int i = lo; i < hi && i < lo + 2; i++) bits |= flags[i] & ~TRIPLE_BITS;
+            bits &= 0xff;
+            if ((bits & NON_ASCII) != 0) bits = NON_ASCII;
+            else if ((bits & BREAK) != 0) bits = bits & ~BREAK | lineBreaks(buf, lo, hi) << LINE_BREAK_SHIFT;
+            out[p] = bits;
+        }
+    }
+
+    // The kernels are kept small and called per vector: C2 compiles them after a few thousand
+    // calls, instead of the whole scan waiting for an on-stack replacement while the slow
+    // (allocating) interpreted and C1 forms of the vector operations run. Masked loads and masked
+    // reductions are avoided altogether: C2 does not intrinsify every shape of them, and the
+    // fallback boxes a mask and a vector per call.
+
+    // OR of flags[i, min(i + L, hi)). flags holds L bytes past every end, so the load stays in
+    // bounds; the lanes past hi are cleared with a plain AND.
+    private static int or(byte[] flags, int i, int hi) {
+        ByteVector keep = ByteVector.fromArray(S, PREFIX, L - Math.min(L, hi - i));
+        return ByteVector.fromArray(S, flags, i).and(keep).reduceLanes(VectorOperators.OR);
+    }
+
+    // flags[i] for every byte of buf[from, to)
+    private static void classify(byte[] buf, int from, int to, byte[] flags) {
+        int base = from;
+        byte[] edge = EDGE.get();
+        for (; base < to && base < 2; base += L) classifyEdge(buf, base, edge, flags);
+        for (; base < to && base + L <= buf.length; base += L) classify(buf, base, flags);
+        for (; base < to; base += L) classifyEdge(buf, base, edge, flags);
+        java.util.Arrays.fill(edge, (byte) 0); // it held password bytes
+    }
+
+    private static void classify(byte[] buf, int base, byte[] flags) {
+        classify(ByteVector.fromArray(S, buf, base), ByteVector.fromArray(S, buf, base - 1),
+                ByteVector.fromArray(S, buf, base - 2), flags, base);
+    }
+
+    // At the ends of the buffer: edge[k] = buf[base - 2 + k], 0 outside buf (as a masked load reads)
+    private static void classifyEdge(byte[] buf, int base, byte[] edge, byte[] flags) {
+        for (int k = 0; k < edge.length; k++) {
+            int j = base - 2 + k;
+            edge[k] = j >= 0 && j < buf.length ? buf[j] : 0;
+        }
+        classify(ByteVector.fromArray(S, edge, 2), ByteVector.fromArray(S, edge, 1),
+                ByteVector.fromArray(S, edge, 0), flags, base);
+    }
+
+    // v0 = the bytes at base, v1 / v2 = the same loaded one / two bytes earlier
+    private static void classify(ByteVector v0, ByteVector v1, ByteVector v2, byte[] flags, int base) {
+        VectorMask<Byte> upper0 = isUpper(v0);
+        VectorMask<Byte> breakM = v0.compare(VectorOperators.EQ, (byte) '\n').or(v0.compare(VectorOperators.EQ, (byte) '\r'));
+
+        // The classes are disjoint, so each blend overrides the SPECIAL default for its lanes
+        ByteVector f = ByteVector.broadcast(S, (byte) SPECIAL)
+                .blend((byte) LOWER, v0.compare(VectorOperators.GE, (byte) 'a').and(v0.compare(VectorOperators.LE, (byte) 'z')))
+                .blend((byte) UPPER, upper0)
+                .blend((byte) DIGIT, v0.compare(VectorOperators.GE, (byte) '0').and(v0.compare(VectorOperators.LE, (byte) '9')))
+                .blend((byte) (SPECIAL | BREAK), breakM)
+                .blend((byte) NON_ASCII, v0.compare(VectorOperators.LT, (byte) 0));
+
+        // (.)\1{2,} outside line breaks: this byte equals the two before it
+        VectorMask<Byte> repeat = v0.compare(VectorOperators.EQ, v1).and(v1.compare(VectorOperators.EQ, v2)).andNot(breakM);
+        f = f.or(ByteVector.zero(S).blend((byte) REPEAT, repeat));
+
+        // Case-insensitive run of three: both steps +1 or both -1. Bytes only wrap for
+        // non-ASCII input, which is reported as NON_ASCII alone anyway.
+        ByteVector lc0 = v0.add((byte) 32, upper0);
+        ByteVector lc1 = v1.add((byte) 32, isUpper(v1));
+        ByteVector lc2 = v2.add((byte) 32, isUpper(v2));
+        ByteVector d1 = lc0.sub(lc1);
+        VectorMask<Byte> sequence = d1.compare(VectorOperators.EQ, lc1.sub(lc2))
+                .and(d1.compare(VectorOperators.EQ, (byte) 1).or(d1.compare(VectorOperators.EQ, (byte) -1)));
+        f.or(ByteVector.zero(S).blend((byte) SEQUENCE, sequence)).intoArray(flags, base);
+    }
+
+    private static VectorMask<Byte> isUpper(ByteVector v) {
+        return v.compare(VectorOperators.GE, (byte) 'A').and(v.compare(VectorOperators.LE, (byte) 'Z'));
+    }
+
+    // Rare: only '\r' survives inside a line, so this is a plain loop
+    private static int lineBreaks(byte[] buf, int from, int to) {
+        int n = 0;
+        for (int i = from; i < to; i++) if (buf[i] == '\n' || buf[i] == '\r') n++;
+        return n;
+    }
+}
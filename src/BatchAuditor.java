@@ -0,0 +1,395 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayDeque;
+import java.util.concurrent.*;
+
+/**
+ * Headless batch audit: scores every line of a password list with {@link PasswordScorer}.
+ *
+ * The input is memory-mapped in slices cut on newline boundaries; slices are scored on a worker
+ * pool and written back in input order. Only a bounded window of slices is in flight at a time,
+ * so the heap never holds more than a few slices' worth of results regardless of file size.
+ * The whole run scores and labels under the policies current when it starts, so a hot reload
+ * mid-run cannot mix two policies in one report.
+ * Each slice's lines are classified in one bulk {@link ClassScanner} pass (SIMD when the JVM has
+ * {@code jdk.incubator.vector}); only lines with non-ASCII bytes are decoded and scanned singly.
+ * With {@code --reuse}, the writer also runs every line, in input order, through a
+ * {@link ReuseDetector} and reports the earlier line each one recycles.
+ *
+ * Usage: {@code java BatchAuditor <input> [--format csv|json] [--out file] [--threads n] [--reuse]}
+ */
+public final class BatchAuditor {
+
+    public enum Format { CSV, JSON }
+
+    private static final int SLICE_BYTES = 8 << 20;      // ~8 MiB of input per task
+    private static final int OUT_BUFFER = 1 << 20;
+    private static final byte[][] VERDICT_BYTES = new byte[5][]; // by verdict ordinal
+
+    static {
+        for (int v = 0; v < VERDICT_BYTES.length; v++) VERDICT_BYTES[v] = PasswordScorer.verdict(v).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private final Path input;
+    private final Format format;
+    private final int threads;
+    private final boolean reuse;
+
+    public BatchAuditor(Path input, Format format, int threads) {
+        this(input, format, threads, false);
+    }
+
+    /** @param reuse also flag lines that are near-identical to an earlier line */
+    public BatchAuditor(Path input, Format format, int threads, boolean reuse) {
+        this.input = input;
+        this.format = format;
+        this.threads = Math.max(1, threads);
+        this.reuse = reuse;
+    }
+
+    /** Scored lines of one input slice; one score byte per line. */
+    private static final class Slice {
+        final long start;
+        final int length;
+        byte[] scores;
+        int lines;
+        int[] starts, ends; // line bounds within the slice, kept for reuse detection only
+
+        Slice(long start, int length) {
+            this.start = start;
+            this.length = length;
+        }
+    }
+
+    /** Per-thread scoring state, reused across slices. */
+    private static final class LineScorer {
+        final PasswordScorer scorer = new PasswordScorer();
+        final ScoreCache.Entry scored = new ScoreCache.Entry();
+        final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.allocate(256);
+        byte[] bytes = new byte[0];   // slice copy for the bulk class scan, wiped after use
+        int[] starts = new int[1024];
+        int[] ends = new int[1024];
+        int[] classes = new int[1024];
+    }
+
+    private static final ClassScanner SCANNER = ClassScanner.create();
+
+    private static final ThreadLocal<LineScorer> LINE_SCORER = ThreadLocal.withInitial(LineScorer::new);
+
+    /** Runs the audit, streaming results to {@code out}. Returns the number of lines scored. */
+    public long run(OutputStream out) throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "audit-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        long lines = 0;
+        long[] verdictCounts = new long[5];
+        long reused = 0;
+        long t0 = System.nanoTime();
+        PolicySet policies = PolicySet.current();
+        ReuseDetector detector = reuse ? new ReuseDetector() : null;
+        LineScorer own = reuse ? new LineScorer() : null; // the writer's decoding scratch
+
+        try (FileChannel ch = FileChannel.open(input, StandardOpenOption.READ);
+             ResultWriter writer = new ResultWriter(out, format, reuse)) {
+            long size = ch.size();
+            long pos = 0;
+            ArrayDeque<Future<Slice>> window = new ArrayDeque<>();
+            int maxInFlight = threads * 2;
+
+            while (pos < size || !window.isEmpty()) {
+                // keep the pool busy but bounded
+                while (pos < size && window.size() < maxInFlight) {
+                    long end = nextBoundary(ch, pos, size);
+                    Slice slice = new Slice(pos, (int) (end - pos));
+                    window.add(pool.submit(() -> score(ch, slice, policies, reuse)));
+                    pos = end;
+                }
+                Slice done = await(window.poll());
+                // detection is sequential (each line is matched against all before it), but it
+                // overlaps with the workers scoring the slices behind this one
+                MappedByteBuffer map = reuse ? ch.map(FileChannel.MapMode.READ_ONLY, done.start, done.length) : null;
+                if (reuse) copy(own, map, done.length);
+                long first = lines + 1;
+                for (int i = 0; i < done.lines; i++) {
+                    int score = done.scores[i];
+                    int verdict = policies.verdictOrdinal(PolicySet.DEFAULT, score);
+                    long similarTo = 0;
+                    if (reuse) {
+                        int match = detector.add(line(own, map, done.starts[i], done.ends[i]));
+                        if (match >= 0) {
+                            similarTo = match + 1;
+                            reused++;
+                        }
+                    }
+                    writer.row(++lines, score, verdict, similarTo);
+                    verdictCounts[verdict]++;
+                }
+                if (reuse) {
+                    java.util.Arrays.fill(own.bytes, 0, done.length, (byte) 0);
+                    java.util.Arrays.fill(own.chars.array(), '\0');
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+            if (detector != null) detector.clear();
+        }
+
+        double secs = (System.nanoTime() - t0) / 1e9;
+        System.err.printf("Audited %,d lines in %.2f s (%,.0f lines/s)%n", lines, secs, secs > 0 ? lines / secs : 0.0);
+        for (int i = 0; i < verdictCounts.length; i++)
+            System.err.printf("  %-12s %,d%n", PasswordScorer.verdict(i), verdictCounts[i]);
+        if (reuse) System.err.printf("  %-12s %,d%n", "Reused", reused);
+        return lines;
+    }
+
+    // Slice end: first byte after the next '\n' at or beyond pos + SLICE_BYTES
+    private static long nextBoundary(FileChannel ch, long pos, long size) throws IOException {
+        long probe = pos + SLICE_BYTES;
+        if (probe >= size) return size;
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        while (probe < size) {
+            buf.clear();
+            int n = ch.read(buf, probe);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++)
+                if (buf.get(i) == '\n') return probe + i + 1;
+            probe += n;
+        }
+        return size;
+    }
+
+    private static Slice score(FileChannel ch, Slice slice, PolicySet policies, boolean keepLines) throws IOException {
+        LineScorer ls = LINE_SCORER.get();
+        ScoreCache cache = ScoreCache.shared();
+        long t = Metrics.start();
+        MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, slice.start, slice.length);
+        int len = slice.length;
+        if (ls.bytes.length < len) ls.bytes = new byte[len];
+        byte[] bytes = ls.bytes;
+        map.get(0, bytes, 0, len);
+
+        // Cut lines, then classify them all in one bulk pass
+        int lines = 0;
+        int lineStart = 0;
+        for (int i = 0; i <= len; i++) {
+            if (i < len && bytes[i] != '\n') continue;
+            if (i == len && lineStart == len) break; // no trailing partial line
+            int lineEnd = i;
+            if (lineEnd > lineStart && bytes[lineEnd - 1] == '\r') lineEnd--;
+            if (lines == ls.starts.length) {
+                ls.starts = java.util.Arrays.copyOf(ls.starts, lines * 2);
+                ls.ends = java.util.Arrays.copyOf(ls.ends, lines * 2);
+                ls.classes = new int[lines * 2];
+            }
+            ls.starts[lines] = lineStart;
+            ls.ends[lines++] = lineEnd;
+            lineStart = i + 1;
+        }
+        SCANNER.scan(bytes, ls.starts, ls.ends, lines, ls.classes);
+
+        byte[] scores = new byte[Math.max(16, lines)];
+        for (int l = 0; l < lines; l++) {
+            int from = ls.starts[l], to = ls.ends[l];
+            int classes = ls.classes[l];
+            if (classes == ClassScanner.NON_ASCII) {
+                CharBuffer chars = decode(ls, map, from, to);
+                scores[l] = (byte) (cache != null ? cache.score(ls.scorer, chars, policies, ls.scored).score
+                        : PasswordScorer.score(ls.scorer.scan(chars), policies, PolicySet.DEFAULT));
+                continue;
+            }
+            CharBuffer chars = ascii(ls, bytes, from, to);
+            if (cache == null) {
+                scores[l] = (byte) PasswordScorer.score(ls.scorer.scan(chars, classes), policies, PolicySet.DEFAULT);
+                continue;
+            }
+            long key = cache.key(chars, policies);
+            if (!cache.get(key, ls.scored)) {
+                ScoreCache.fill(ls.scorer.scan(chars, classes), policies, ls.scored);
+                cache.put(key, ls.scored);
+            }
+            scores[l] = (byte) ls.scored.score;
+        }
+        java.util.Arrays.fill(bytes, 0, len, (byte) 0);
+        slice.scores = scores;
+        slice.lines = lines;
+        if (keepLines) {
+            slice.starts = java.util.Arrays.copyOf(ls.starts, lines);
+            slice.ends = java.util.Arrays.copyOf(ls.ends, lines);
+        }
+        Metrics.stop(Metrics.AUDIT_SLICE, t);
+        Metrics.count(Metrics.AUDITED_LINES, lines);
+        return slice;
+    }
+
+    // Slice bytes into ls.bytes, wiped by the caller
+    private static void copy(LineScorer ls, MappedByteBuffer map, int len) {
+        if (ls.bytes.length < len) ls.bytes = new byte[len];
+        map.get(0, ls.bytes, 0, len);
+    }
+
+    // One line of a slice copied by copy(), decoded
+    private static CharBuffer line(LineScorer ls, MappedByteBuffer map, int from, int to) {
+        for (int i = from; i < to; i++) if (ls.bytes[i] < 0) return decode(ls, map, from, to);
+        return ascii(ls, ls.bytes, from, to);
+    }
+
+    private static CharBuffer ascii(LineScorer ls, byte[] bytes, int from, int to) {
+        int n = to - from;
+        if (ls.chars.capacity() < n) ls.chars = CharBuffer.allocate(Math.max(n, ls.chars.capacity() * 2));
+        CharBuffer chars = ls.chars;
+        chars.clear();
+        for (int i = from; i < to; i++) chars.put((char) bytes[i]);
+        chars.flip();
+        return chars;
+    }
+
+    // Lines with non-ASCII bytes; UTF-8 decoded straight from the mapping
+    private static CharBuffer decode(LineScorer ls, MappedByteBuffer map, int from, int to) {
+        int n = to - from;
+        if (ls.chars.capacity() < n) ls.chars = CharBuffer.allocate(Math.max(n, ls.chars.capacity() * 2));
+        CharBuffer chars = ls.chars;
+        chars.clear();
+        map.limit(to).position(from);
+        ls.decoder.reset();
+        ls.decoder.decode(map, chars, true);
+        ls.decoder.flush(chars);
+        map.clear();
+        chars.flip();
+        return chars;
+    }
+
+    private static Slice await(Future<Slice> f) throws IOException, InterruptedException {
+        try {
+            return f.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException("Audit worker failed", cause);
+        }
+    }
+
+    /** Writes result rows through a single reusable byte buffer, no per-row formatting objects. */
+    private static final class ResultWriter implements Closeable {
+        private final OutputStream out;
+        private final Format format;
+        private final boolean reuse;
+        private final byte[] buf = new byte[OUT_BUFFER];
+        private int pos;
+        private boolean first = true;
+
+        ResultWriter(OutputStream out, Format format, boolean reuse) throws IOException {
+            this.out = out;
+            this.format = format;
+            this.reuse = reuse;
+            put(format == Format.JSON ? "[\n" : reuse ? "line,score,verdict,similar_to\n" : "line,score,verdict\n");
+        }
+
+        // similarTo: earlier line number, or 0 for none
+        void row(long line, int score, int verdict, long similarTo) throws IOException {
+            if (pos > buf.length - 128) drain();
+            if (format == Format.CSV) {
+                putNum(line);
+                buf[pos++] = ',';
+                putNum(score);
+                buf[pos++] = ',';
+                putBytes(VERDICT_BYTES[verdict]);
+                if (reuse) {
+                    buf[pos++] = ',';
+                    if (similarTo > 0) putNum(similarTo);
+                }
+                buf[pos++] = '\n';
+            } else {
+                if (!first) {
+                    buf[pos++] = ',';
+                    buf[pos++] = '\n';
+                }
+                put("{\"line\":");
+                putNum(line);
+                put(",\"score\":");
+                putNum(score);
+                put(",\"verdict\":\"");
+                putBytes(VERDICT_BYTES[verdict]);
+                if (similarTo > 0) {
+                    put("\",\"similarTo\":");
+                    putNum(similarTo);
+                    buf[pos++] = '}';
+                } else {
+                    put("\"}");
+                }
+            }
+            first = false;
+        }
+
+        private void put(String ascii) {
+            for (int i = 0; i < ascii.length(); i++) buf[pos++] = (byte) ascii.charAt(i);
+        }
+
+        private void putBytes(byte[] b) {
+            System.arraycopy(b, 0, buf, pos, b.length);
+            pos += b.length;
+        }
+
+        private void putNum(long v) {
+            int start = pos;
+            do {
+                buf[pos++] = (byte) ('0' + (v % 10));
+                v /= 10;
+            } while (v != 0);
+            for (int i = start, j = pos - 1; i < j; i++, j--) {
+                byte t = buf[i];
+                buf[i] = buf[j];
+                buf[j] = t;
+            }
+        }
+
+        private void drain() throws IOException {
+            out.write(buf, 0, pos);
+            pos = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (format == Format.JSON) put(first ? "]\n" : "\n]\n");
+            drain();
+            out.flush();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: java BatchAuditor <input> [--format csv|json] [--out file] [--threads n] [--reuse]");
+            System.exit(2);
+        }
+        Path in = Paths.get(args[0]);
+        Format format = Format.CSV;
+        Path outPath = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean reuse = false;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--format": format = Format.valueOf(args[++i].toUpperCase()); break;
+                case "--out": outPath = Paths.get(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--reuse": reuse = true; break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        try (OutputStream out = outPath == null ? new FileOutputStream(FileDescriptor.out) : Files.newOutputStream(outPath)) {
+            new BatchAuditor(in, format, threads, reuse).run(out);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+
+/**
+ * Memory-mapped breached/common password dictionary.
+ *
+ * The on-disk index is built once from a plain word list (one password per line) and holds the
+ * sorted 63-bit hashes of the lowercased entries, a prefix table that narrows each lookup to a
+ * small bucket, and a Bloom filter that rejects most misses without touching the hash array.
+ * Nothing is copied onto the heap, so a rockyou-sized list costs only page cache.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   "PWDDICT1" | count:long | prefixBits:int | bloomWords:int
+ *   prefix table: int[2^prefixBits + 1]  (start index of each bucket)
+ *   bloom filter: long[bloomWords]
+ *   hashes:       long[count]            (sorted, unique)
+ * </pre>
+ * Lookups are case-insensitive, matching the built-in common-password check. The index must fit a
+ * single mapping (under 2 GiB, roughly 200M entries).
+ */
+public final class BreachedDictionary {
+
+    private static final byte[] MAGIC = "PWDDICT1".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER = 24;
+    private static final int BLOOM_HASHES = 7;
+    private static final int BLOOM_BITS_PER_ENTRY = 10;
+
+    private final MappedByteBuffer map;
+    private final long count;
+    private final int prefixBits;
+    private final int bloomWords;
+    private final int tableOffset, bloomOffset, hashOffset;
+
+    private BreachedDictionary(MappedByteBuffer map) throws IOException {
+        this.map = map;
+        byte[] magic = new byte[MAGIC.length];
+        map.get(0, magic);
+        if (!Arrays.equals(magic, MAGIC)) throw new IOException("Not a password dictionary index");
+        this.count = map.getLong(8);
+        this.prefixBits = map.getInt(16);
+        this.bloomWords = map.getInt(20);
+        this.tableOffset = HEADER;
+        this.bloomOffset = tableOffset + ((1 << prefixBits) + 1) * 4;
+        this.hashOffset = bloomOffset + bloomWords * 8;
+        if ((long) hashOffset + count * 8 > map.capacity()) throw new IOException("Truncated dictionary index");
+    }
+
+    public static BreachedDictionary open(Path index) throws IOException {
+        try (FileChannel ch = FileChannel.open(index, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) throw new IOException("Dictionary index too large to map: " + ch.size());
+            return new BreachedDictionary(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        }
+    }
+
+    private static final class Shared {
+        static final BreachedDictionary INSTANCE = load();
+
+        private static BreachedDictionary load() {
+            String path = System.getProperty("pwdchk.dictionary");
+            if (path == null || path.isEmpty()) return null;
+            try {
+                return open(Paths.get(path));
+            } catch (IOException e) {
+                System.err.println("Breached-password dictionary unavailable (" + path + "): " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    /** Dictionary named by the {@code pwdchk.dictionary} system property, or null if none is configured. */
+    public static BreachedDictionary shared() {
+        return Shared.INSTANCE;
+    }
+
+    public long size() {
+        return count;
+    }
+
+    /** Case-insensitive membership test; allocation-free. */
+    public boolean contains(CharSequence pwd) {
+        long h = hash(pwd);
+        if (bloomWords > 0 && !bloomMayContain(h)) return false;
+        int bucket = (int) (h >>> (63 - prefixBits));
+        long lo = map.getInt(tableOffset + bucket * 4);
+        long hi = map.getInt(tableOffset + (bucket + 1) * 4) - 1L;
+        while (lo <= hi) {
+            long mid = (lo + hi) >>> 1;
+            long v = map.getLong(hashOffset + (int) (mid * 8));
+            if (v < h) lo = mid + 1;
+            else if (v > h) hi = mid - 1;
+            else return true;
+        }
+        return false;
+    }
+
+    private boolean bloomMayContain(long h) {
+        long bits = (long) bloomWords * 64;
+        long h2 = mix(h) | 1;
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            long bit = Long.remainderUnsigned(h + i * h2, bits);
+            long word = map.getLong(bloomOffset + (int) (bit >>> 6) * 8);
+            if ((word & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /** 63-bit hash of the lowercased password (non-negative, so signed order is the bucket order). */
+    static long hash(CharSequence s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= Character.toLowerCase(s.charAt(i));
+            h *= 0x100000001b3L;
+        }
+        return mix(h) >>> 1;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    // --- Index builder (one-time, offline) ---
+
+    /**
+     * Builds an index from a UTF-8 word list. Bytes that are not UTF-8 (rockyou has Latin-1 lines)
+     * decode to U+FFFD, as in {@link BatchAuditor}, so such a line still matches itself in an
+     * audit. Holds one long per entry on the heap while sorting, so run with enough -Xmx for the
+     * list (about 800 MB per 100M entries).
+     */
+    public static long build(Path wordList, Path index) throws IOException {
+        long[] hashes = new long[1 << 20];
+        int n = 0;
+        try (BufferedReader r = reader(wordList)) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                if (n == hashes.length) hashes = Arrays.copyOf(hashes, n * 2);
+                hashes[n++] = hash(line);
+            }
+        }
+        Arrays.sort(hashes, 0, n);
+        int unique = 0;
+        for (int i = 0; i < n; i++)
+            if (unique == 0 || hashes[unique - 1] != hashes[i]) hashes[unique++] = hashes[i];
+
+        int prefixBits = 8;
+        while (prefixBits < 24 && (unique >>> prefixBits) > 64) prefixBits++;
+        int buckets = 1 << prefixBits;
+        int[] table = new int[buckets + 1];
+        for (int i = 0; i < unique; i++) table[(int) (hashes[i] >>> (63 - prefixBits)) + 1]++;
+        for (int b = 0; b < buckets; b++) table[b + 1] += table[b];
+
+        int bloomWords = (int) Math.max(1, ((long) unique * BLOOM_BITS_PER_ENTRY + 63) / 64);
+        long[] bloom = new long[bloomWords];
+        long bits = (long) bloomWords * 64;
+        for (int i = 0; i < unique; i++) {
+            long h = hashes[i], h2 = mix(h) | 1;
+            for (int k = 0; k < BLOOM_HASHES; k++) {
+                long bit = Long.remainderUnsigned(h + k * h2, bits);
+                bloom[(int) (bit >>> 6)] |= 1L << bit;
+            }
+        }
+
+        try (FileChannel ch = FileChannel.open(index, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.BIG_ENDIAN);
+            buf.put(MAGIC).putLong(unique).putInt(prefixBits).putInt(bloomWords);
+            for (int v : table) {
+                if (buf.remaining() < 4) drain(ch, buf);
+                buf.putInt(v);
+            }
+            for (long v : bloom) {
+                if (buf.remaining() < 8) drain(ch, buf);
+                buf.putLong(v);
+            }
+            for (int i = 0; i < unique; i++) {
+                if (buf.remaining() < 8) drain(ch, buf);
+                buf.putLong(hashes[i]);
+            }
+            drain(ch, buf);
+        }
+        return unique;
+    }
+
+    // UTF-8 reader that replaces malformed input instead of throwing
+    private static BufferedReader reader(Path file) throws IOException {
+        return new BufferedReader(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)));
+    }
+
+    private static void drain(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && args[0].equals("build")) {
+            long t0 = System.nanoTime();
+            long n = build(Paths.get(args[1]), Paths.get(args[2]));
+            System.err.printf("Indexed %,d unique entries in %.1f s%n", n, (System.nanoTime() - t0) / 1e9);
+        } else if (args.length >= 3 && args[0].equals("check")) {
+            BreachedDictionary dict = open(Paths.get(args[1]));
+            for (int i = 2; i < args.length; i++)
+                System.out.println(args[i] + ": " + (dict.contains(args[i]) ? "FOUND" : "not found"));
+        } else {
+            System.err.println("Usage: java BreachedDictionary build <wordlist.txt> <index.bin>");
+            System.err.println("       java BreachedDictionary check <index.bin> <password>...");
+            System.exit(2);
+        }
+    }
+}
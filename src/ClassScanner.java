@@ -0,0 +1,85 @@
+/**
+ * Bulk character-class scan for batch audits: classifies many ASCII passwords packed in one byte
+ * buffer (lower / upper / digit / special, line breaks, and the repeat and sequence triples) with
+ * the same rules as {@link PasswordScorer#scan}, one packed int of flags per password.
+ *
+ * {@link #create()} returns the {@code jdk.incubator.vector} implementation (VectorClassScanner,
+ * built from {@code src-vector/}) when that class is on the classpath and the JVM runs with
+ * {@code --add-modules jdk.incubator.vector}; otherwise, or with {@code -Dpwdchk.vector=false}, the
+ * scalar one below. Passwords containing non-ASCII bytes get {@link #NON_ASCII} and nothing else;
+ * callers decode and scan those through {@link PasswordScorer#scan} as usual.
+ */
+public abstract class ClassScanner {
+
+    public static final int LOWER = 1;
+    public static final int UPPER = 1 << 1;
+    public static final int DIGIT = 1 << 2;
+    public static final int SPECIAL = 1 << 3;
+    public static final int REPEAT = 1 << 4;
+    public static final int SEQUENCE = 1 << 5;
+    public static final int NON_ASCII = 1 << 6;
+    public static final int LINE_BREAK_SHIFT = 8; // '\r' / '\n' count in the bits from here up
+
+    /**
+     * Classifies {@code count} passwords, the i-th being {@code buf[starts[i], ends[i])}, into
+     * {@code out[i]}. Ranges must be ascending and must not overlap.
+     */
+    public abstract void scan(byte[] buf, int[] starts, int[] ends, int count, int[] out);
+
+    /** Implementation name, for logs and benchmarks. */
+    public abstract String name();
+
+    /** The fastest scanner this JVM can run. */
+    public static ClassScanner create() {
+        if (!"false".equals(System.getProperty("pwdchk.vector"))) {
+            try {
+                return (ClassScanner) Class.forName("VectorClassScanner").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // not built in, or jdk.incubator.vector not added to the module graph
+            }
+        }
+        return new Scalar();
+    }
+
+    /** The scalar scanner, whatever the JVM supports. */
+    public static ClassScanner scalar() {
+        return new Scalar();
+    }
+
+    static final class Scalar extends ClassScanner {
+        @Override
+        public void scan(byte[] buf, int[] starts, int[] ends, int count, int[] out) {
+            for (int p = 0; p < count; p++) out[p] = scanOne(buf, starts[p], ends[p]);
+        }
+
+        @Override
+        public String name() {
+            return "scalar";
+        }
+
+        private static int scanOne(byte[] buf, int from, int to) {
+            int bits = 0, lineBreaks = 0;
+            int run = 0;
+            int prev = -1, p1 = 0, p2 = 0;
+            for (int i = from; i < to; i++) {
+                int c = buf[i];
+                if (c < 0) return NON_ASCII;
+                if (c >= 'a' && c <= 'z') bits |= LOWER;
+                else if (c >= 'A' && c <= 'Z') bits |= UPPER;
+                else if (c >= '0' && c <= '9') bits |= DIGIT;
+                else {
+                    bits |= SPECIAL;
+                    if (c == '\r' || c == '\n') lineBreaks++;
+                }
+                run = c == prev ? run + 1 : 1;
+                prev = c;
+                if (run >= 3 && c != '\r' && c != '\n') bits |= REPEAT;
+                int lc = c >= 'A' && c <= 'Z' ? c + 32 : c;
+                if (i - from >= 2 && ((p2 == p1 + 1 && lc == p2 + 1) || (p2 == p1 - 1 && lc == p2 - 1))) bits |= SEQUENCE;
+                p1 = p2;
+                p2 = lc;
+            }
+            return bits | lineBreaks << LINE_BREAK_SHIFT;
+        }
+    }
+}
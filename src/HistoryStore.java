@@ -0,0 +1,255 @@
+import java.util.Arrays;
+
+/**
+ * Columnar, headless password history: one primitive array per column and a shared char buffer
+ * for the passwords, so an entry costs about 40 bytes plus its characters and no per-row objects.
+ *
+ * With a cap (constructor argument, or {@code -Dpwdchk.history.cap=<n>} for {@link #fromProperties})
+ * the columns become a ring: appending to a full store evicts the oldest entry and wipes its
+ * characters. The password buffer is append-only; the space of evicted entries is reclaimed by
+ * sliding the live tail down once it makes up half the buffer. Rows are addressed oldest-first
+ * (0 = oldest live entry). Not thread-safe; the GUI drives it from the EDT.
+ */
+public final class HistoryStore {
+
+    private final int cap; // 0 = unbounded
+    private int capacity;  // slots allocated in each column
+    private int head;      // slot of row 0
+    private int size;
+    private long evicted;  // entries dropped so far, so sequence numbers keep counting
+
+    private int[] scores;
+    private byte[] verdicts;   // PasswordScorer verdict ordinals
+    private long[] epochMillis;
+    private long[] breaches;
+    private long[] similarTo;  // sequence number of an earlier near-identical entry, 0 if none
+    private long[] pwdStart;   // logical offset into the password stream
+    private int[] pwdLength;
+
+    private char[] chars = new char[1024];
+    private long charBase;     // logical offset of chars[0]
+    private long charEnd;      // logical offset one past the last appended char
+
+    public HistoryStore() {
+        this(0);
+    }
+
+    /** @param cap maximum number of entries kept (oldest evicted first), or 0 for no limit */
+    public HistoryStore(int cap) {
+        if (cap < 0) throw new IllegalArgumentException("cap must be >= 0: " + cap);
+        this.cap = cap;
+        allocate(cap > 0 ? cap : 256);
+    }
+
+    /** Store capped by the {@code pwdchk.history.cap} system property (unbounded if unset or 0). */
+    public static HistoryStore fromProperties() {
+        return new HistoryStore(Integer.getInteger("pwdchk.history.cap", 0));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int cap() {
+        return cap;
+    }
+
+    /**
+     * Appends an entry and returns true if the oldest entry was evicted to make room (row indices
+     * then shift down by one).
+     */
+    public boolean append(CharSequence pwd, int score, long breachCount, long epochMs) {
+        int k = pwd.length();
+        boolean evict = newEntry(k, score, breachCount, epochMs);
+        int used = reserveChars(k);
+        for (int i = 0; i < k; i++) chars[used + i] = pwd.charAt(i);
+        return evict;
+    }
+
+    /** As {@link #append(CharSequence, int, long, long)} for {@code pwd[off, off + len)}, copied in bulk. */
+    public boolean append(char[] pwd, int off, int len, int score, long breachCount, long epochMs) {
+        return append(pwd, off, len, score, breachCount, 0, epochMs);
+    }
+
+    /** As above, recording that the password reuses the entry with sequence number {@code similarTo} (0: none). */
+    public boolean append(char[] pwd, int off, int len, int score, long breachCount, long similarTo, long epochMs) {
+        boolean evict = newEntry(len, score, breachCount, epochMs);
+        this.similarTo[slot(size - 1)] = similarTo;
+        int used = reserveChars(len); // may replace chars
+        System.arraycopy(pwd, off, chars, used, len);
+        return evict;
+    }
+
+    // Fills the columns of a new last row whose password of k chars is appended next
+    private boolean newEntry(int k, int score, long breachCount, long epochMs) {
+        boolean evict = cap > 0 && size == cap;
+        if (evict) {
+            wipeChars(head);
+            head = slot(1);
+            size--;
+            evicted++;
+        } else if (size == capacity) {
+            grow();
+        }
+        int s = slot(size);
+        scores[s] = score;
+        verdicts[s] = (byte) PasswordScorer.verdictOrdinal(score);
+        epochMillis[s] = epochMs;
+        breaches[s] = breachCount;
+        similarTo[s] = 0;
+        pwdStart[s] = charEnd;
+        pwdLength[s] = k;
+        size++;
+        return evict;
+    }
+
+    /** 1-based sequence number of the entry at {@code row}; keeps counting across evictions. */
+    public long sequence(int row) {
+        check(row);
+        return evicted + row + 1;
+    }
+
+    public int score(int row) {
+        return scores[slotOf(row)];
+    }
+
+    public int verdictOrdinal(int row) {
+        return verdicts[slotOf(row)];
+    }
+
+    public long epochMillis(int row) {
+        return epochMillis[slotOf(row)];
+    }
+
+    public long breaches(int row) {
+        return breaches[slotOf(row)];
+    }
+
+    /** Sequence number of the earlier entry this one reuses, or 0; that entry may since have been evicted. */
+    public long similarTo(int row) {
+        return similarTo[slotOf(row)];
+    }
+
+    public int passwordLength(int row) {
+        return pwdLength[slotOf(row)];
+    }
+
+    /** Password chars of {@code row} without copying; the view is only valid until the next append. */
+    public CharSequence password(int row) {
+        int s = slotOf(row);
+        return java.nio.CharBuffer.wrap(chars, (int) (pwdStart[s] - charBase), pwdLength[s]);
+    }
+
+    /** Copies the password of {@code row} into {@code dst} at {@code off}; returns its length. */
+    public int getPassword(int row, char[] dst, int off) {
+        int s = slotOf(row);
+        System.arraycopy(chars, (int) (pwdStart[s] - charBase), dst, off, pwdLength[s]);
+        return pwdLength[s];
+    }
+
+    /**
+     * Independent, compacted copy of the live entries (sequence numbers preserved) for background
+     * readers such as {@link HistoryExporter}; {@link #clear()} it when done to wipe its passwords.
+     */
+    public HistoryStore snapshot() {
+        HistoryStore c = new HistoryStore(0);
+        c.allocate(Math.max(size, 1));
+        int first = Math.min(size, capacity - head);
+        copyColumns(head, c, 0, first);
+        copyColumns(0, c, first, size - first);
+        c.size = size;
+        c.evicted = evicted;
+        long liveStart = size > 0 ? pwdStart[head] : charEnd;
+        int from = (int) (liveStart - charBase), used = (int) (charEnd - charBase);
+        c.chars = Arrays.copyOfRange(chars, from, Math.max(used, from + 1));
+        c.charBase = liveStart;
+        c.charEnd = charEnd;
+        return c;
+    }
+
+    private void copyColumns(int from, HistoryStore dst, int to, int n) {
+        System.arraycopy(scores, from, dst.scores, to, n);
+        System.arraycopy(verdicts, from, dst.verdicts, to, n);
+        System.arraycopy(epochMillis, from, dst.epochMillis, to, n);
+        System.arraycopy(breaches, from, dst.breaches, to, n);
+        System.arraycopy(similarTo, from, dst.similarTo, to, n);
+        System.arraycopy(pwdStart, from, dst.pwdStart, to, n);
+        System.arraycopy(pwdLength, from, dst.pwdLength, to, n);
+    }
+
+    /** Removes every entry and wipes the stored passwords. */
+    public void clear() {
+        Arrays.fill(chars, '\0');
+        charBase = charEnd = 0;
+        evicted += size;
+        head = size = 0;
+    }
+
+    // --- Internals ---
+
+    private int slot(int row) {
+        int s = head + row;
+        return s >= capacity ? s - capacity : s;
+    }
+
+    private int slotOf(int row) {
+        check(row);
+        return slot(row);
+    }
+
+    private void check(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException("row " + row + " of " + size);
+    }
+
+    private void allocate(int n) {
+        capacity = n;
+        scores = new int[n];
+        verdicts = new byte[n];
+        epochMillis = new long[n];
+        breaches = new long[n];
+        similarTo = new long[n];
+        pwdStart = new long[n];
+        pwdLength = new int[n];
+    }
+
+    // Unbounded stores only; the ring (head > 0) never grows
+    private void grow() {
+        int n = capacity * 2;
+        scores = Arrays.copyOf(scores, n);
+        verdicts = Arrays.copyOf(verdicts, n);
+        epochMillis = Arrays.copyOf(epochMillis, n);
+        breaches = Arrays.copyOf(breaches, n);
+        similarTo = Arrays.copyOf(similarTo, n);
+        pwdStart = Arrays.copyOf(pwdStart, n);
+        pwdLength = Arrays.copyOf(pwdLength, n);
+        capacity = n;
+    }
+
+    private void wipeChars(int s) {
+        int from = (int) (pwdStart[s] - charBase);
+        Arrays.fill(chars, from, from + pwdLength[s], '\0');
+    }
+
+    // Makes room for k more chars and returns the chars[] index to write them at. The new row's
+    // pwdStart is already set, so it counts as live when sliding.
+    private int reserveChars(int k) {
+        int used = (int) (charEnd - charBase);
+        if (used + k > chars.length) {
+            long liveStart = pwdStart[head];
+            int dead = (int) (liveStart - charBase);
+            if (dead >= chars.length / 2 && used - dead + k <= chars.length) {
+                // slide the live tail down over the evicted prefix
+                System.arraycopy(chars, dead, chars, 0, used - dead);
+                Arrays.fill(chars, used - dead, used, '\0');
+                charBase = liveStart;
+            } else {
+                char[] grown = Arrays.copyOf(chars, Math.max(chars.length * 2, used + k));
+                Arrays.fill(chars, '\0');
+                chars = grown;
+            }
+            used = (int) (charEnd - charBase);
+        }
+        charEnd += k;
+        return used;
+    }
+}
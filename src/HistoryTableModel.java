@@ -0,0 +1,184 @@
+import javax.swing.JTable;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.*;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.BitSet;
+
+/**
+ * Virtual table model over a {@link HistoryStore}: nothing is stored per row, and cells are
+ * formatted only when the table asks for them, i.e. for the rows on screen. Tracks which rows
+ * the user has revealed (click on the masked column). EDT only.
+ *
+ * The two password columns are {@link CharSequence} views into the store, never Strings; install
+ * {@link PasswordRenderer} for {@code CharSequence.class} so they are drawn straight from the
+ * chars. The views are only valid until the next append, so read them as the table does: at once.
+ */
+public final class HistoryTableModel extends AbstractTableModel {
+
+    public static final int COL_INDEX = 0, COL_MASKED = 1, COL_RAW = 2, COL_SCORE = 3,
+            COL_VERDICT = 4, COL_BREACHES = 5, COL_TIME = 6, COL_SIMILAR = 7;
+
+    private static final String[] COLUMNS = {"#", "Password (masked)", "Password (raw)", "Score", "Verdict", "Breaches", "Time", "Similar to"};
+    private static final Class<?>[] TYPES = {Long.class, CharSequence.class, CharSequence.class, Integer.class, String.class, Long.class, String.class, String.class};
+    static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private final HistoryStore store;
+    private final BitSet revealed = new BitSet(); // bit i = entry with sequence number revealedBase + i
+    private long revealedBase = 1;
+
+    public HistoryTableModel(HistoryStore store) {
+        this.store = store;
+    }
+
+    public HistoryStore store() {
+        return store;
+    }
+
+    /** Appends to the store and fires the matching row events (including an eviction). */
+    public void append(CharSequence pwd, int score, long breaches, long epochMs) {
+        appended(store.append(pwd, score, breaches, epochMs));
+    }
+
+    /** As {@link #append(CharSequence, int, long, long)} for {@code pwd[off, off + len)}. */
+    public void append(char[] pwd, int off, int len, int score, long breaches, long epochMs) {
+        appended(store.append(pwd, off, len, score, breaches, epochMs));
+    }
+
+    /** As above, for a password reusing the entry with sequence number {@code similarTo} (0: none). */
+    public void append(char[] pwd, int off, int len, int score, long breaches, long similarTo, long epochMs) {
+        appended(store.append(pwd, off, len, score, breaches, similarTo, epochMs));
+    }
+
+    private void appended(boolean evicted) {
+        if (evicted) {
+            fireTableRowsDeleted(0, 0);
+            trimRevealed();
+        }
+        int last = store.size() - 1;
+        fireTableRowsInserted(last, last);
+    }
+
+    public void toggleReveal(int row) {
+        revealed.flip(bit(row));
+        fireTableCellUpdated(row, COL_MASKED);
+    }
+
+    @Override
+    public int getRowCount() {
+        return store.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return TYPES[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        switch (column) {
+            case COL_INDEX: return store.sequence(row);
+            case COL_MASKED: return revealed.get(bit(row)) ? store.password(row) : mask(store.password(row));
+            case COL_RAW: return store.password(row);
+            case COL_SCORE: return store.score(row);
+            case COL_VERDICT: return PasswordScorer.verdict(store.verdictOrdinal(row));
+            case COL_BREACHES: return store.breaches(row);
+            case COL_TIME: return TIME_FORMAT.format(Instant.ofEpochMilli(store.epochMillis(row)));
+            case COL_SIMILAR: return store.similarTo(row) > 0 ? "#" + store.similarTo(row) : "";
+            default: throw new IndexOutOfBoundsException("column " + column);
+        }
+    }
+
+    /** View of {@code pwd} with the first and last char kept, the rest starred (all starred for two chars or fewer). */
+    static CharSequence mask(CharSequence pwd) {
+        return new CharSequence() {
+            @Override
+            public int length() {
+                return pwd.length();
+            }
+
+            @Override
+            public char charAt(int i) {
+                int n = pwd.length();
+                return n > 2 && (i == 0 || i == n - 1) ? pwd.charAt(i) : '*';
+            }
+
+            @Override
+            public CharSequence subSequence(int start, int end) {
+                return new StringBuilder(this).subSequence(start, end);
+            }
+
+            @Override
+            public String toString() {
+                return new StringBuilder(this).toString();
+            }
+        };
+    }
+
+    /**
+     * Draws a {@link CharSequence} cell through a scratch array that is wiped after every paint, so
+     * painting the password columns creates no Strings. The one remaining copy is the table's own
+     * Copy action (Ctrl+C), which, like the clipboard button, needs a String.
+     */
+    public static final class PasswordRenderer extends DefaultTableCellRenderer {
+        private CharSequence chars;
+        private char[] scratch = new char[64];
+
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                       boolean hasFocus, int row, int column) {
+            super.getTableCellRendererComponent(table, null, isSelected, hasFocus, row, column); // no toString()
+            chars = (CharSequence) value;
+            return this;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g); // background and border; the label text is empty
+            CharSequence s = chars;
+            chars = null;
+            if (s == null) return;
+            int n = s.length();
+            if (scratch.length < n) scratch = new char[Math.max(n, scratch.length * 2)];
+            for (int i = 0; i < n; i++) scratch[i] = s.charAt(i);
+            Graphics2D g2 = (Graphics2D) g;
+            Object hints = Toolkit.getDefaultToolkit().getDesktopProperty("awt.font.desktophints");
+            if (hints instanceof java.util.Map) g2.addRenderingHints((java.util.Map<?, ?>) hints);
+            g2.setFont(getFont());
+            g2.setColor(getForeground());
+            FontMetrics fm = g2.getFontMetrics();
+            Insets in = getInsets();
+            int y = in.top + (getHeight() - in.top - in.bottom - fm.getHeight()) / 2 + fm.getAscent();
+            g2.drawChars(scratch, 0, n, in.left, y);
+            java.util.Arrays.fill(scratch, 0, n, '\0');
+        }
+    }
+
+    private int bit(int row) {
+        return (int) (store.sequence(row) - revealedBase);
+    }
+
+    // Drops reveal bits of evicted rows once they pile up, so the set stays proportional to the store
+    private void trimRevealed() {
+        long oldest = store.size() > 0 ? store.sequence(0) : revealedBase;
+        int dead = (int) (oldest - revealedBase);
+        if (dead >= 4096) {
+            BitSet kept = revealed.get(dead, Math.max(dead, revealed.length()));
+            revealed.clear();
+            revealed.or(kept);
+            revealedBase = oldest;
+        }
+    }
+}
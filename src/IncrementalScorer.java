@@ -0,0 +1,111 @@
+import java.util.Arrays;
+
+/**
+ * Keeps the cheap {@link PasswordScorer.Features} of an editable password up to date from
+ * insert/remove deltas, so a keystroke costs O(edit size) instead of a rescan.
+ *
+ * Class counts, line breaks and every repeat/sequence window are tracked as counters; an edit
+ * retracts the windows around the edit point, applies it, and re-adds them. Whole-password
+ * lookups (common list, dictionaries, breach counts) are left to {@link PasswordScorer#lookup}.
+ * Not thread-safe; the GUI drives it from the EDT.
+ */
+public final class IncrementalScorer {
+
+    private char[] buf = new char[32];
+    private int len;
+
+    private int lower, upper, digit, special, lineBreaks;
+    private int repeats;    // char triples a a a (not line breaks)
+    private int pairRepeats; // surrogate-pair triples
+    private int sequences;  // +/-1 runs of three, case-insensitive
+
+    public int length() {
+        return len;
+    }
+
+    public void insert(int offset, CharSequence text) {
+        int k = text.length();
+        if (k == 0) return;
+        windows(offset - 1, offset + 1, -1);
+        ensureCapacity(len + k);
+        System.arraycopy(buf, offset, buf, offset + k, len - offset);
+        for (int i = 0; i < k; i++) {
+            char c = text.charAt(i);
+            buf[offset + i] = c;
+            classes(c, 1);
+        }
+        len += k;
+        windows(offset - 1, offset + k + 1, 1);
+    }
+
+    public void remove(int offset, int length) {
+        if (length == 0) return;
+        windows(offset - 1, offset + length + 1, -1);
+        for (int i = offset; i < offset + length; i++) classes(buf[i], -1);
+        System.arraycopy(buf, offset + length, buf, offset, len - offset - length);
+        Arrays.fill(buf, len - length, len, '\0');
+        len -= length;
+        windows(offset - 1, offset + 1, 1);
+    }
+
+    /** Wipes the mirrored text and resets all counters. */
+    public void clear() {
+        Arrays.fill(buf, '\0');
+        len = 0;
+        lower = upper = digit = special = lineBreaks = 0;
+        repeats = pairRepeats = sequences = 0;
+    }
+
+    /** Fills the scan-derived fields of {@code f}; {@code common} and {@code breaches} are reset. */
+    public PasswordScorer.Features features(PasswordScorer.Features f) {
+        f.reset();
+        f.length = len;
+        f.lower = lower > 0;
+        f.upper = upper > 0;
+        f.digit = digit > 0;
+        f.special = special > 0;
+        f.lineBreaks = lineBreaks;
+        f.repeat = repeats > 0 || pairRepeats > 0;
+        f.sequence = sequences > 0;
+        return f;
+    }
+
+    /** Copy of the current text for off-thread lookups; the caller must wipe it when done. */
+    public char[] snapshot() {
+        return Arrays.copyOf(buf, len);
+    }
+
+    private void classes(char c, int sign) {
+        if (c >= 'a' && c <= 'z') lower += sign;
+        else if (c >= 'A' && c <= 'Z') upper += sign;
+        else if (c >= '0' && c <= '9') digit += sign;
+        else {
+            special += sign;
+            if (PasswordScorer.isLineTerminator(c)) lineBreaks += sign;
+        }
+    }
+
+    // Adds (sign = 1) or retracts (sign = -1) every window overlapping chars [lo, hi)
+    private void windows(int lo, int hi, int sign) {
+        lo = Math.max(lo, 0);
+        hi = Math.min(hi, len);
+        for (int i = Math.max(0, lo - 2); i < hi && i + 2 < len; i++) {
+            char a = buf[i], b = buf[i + 1], c = buf[i + 2];
+            if (a == b && b == c && !PasswordScorer.isLineTerminator(a)) repeats += sign;
+            char la = Character.toLowerCase(a), lb = Character.toLowerCase(b), lc = Character.toLowerCase(c);
+            if ((lb == la + 1 && lc == lb + 1) || (lb == la - 1 && lc == lb - 1)) sequences += sign;
+        }
+        for (int i = Math.max(0, lo - 5); i < hi && i + 5 < len; i++) {
+            if (Character.isHighSurrogate(buf[i]) && Character.isLowSurrogate(buf[i + 1])
+                    && buf[i] == buf[i + 2] && buf[i] == buf[i + 4]
+                    && buf[i + 1] == buf[i + 3] && buf[i + 1] == buf[i + 5]) pairRepeats += sign;
+        }
+    }
+
+    private void ensureCapacity(int n) {
+        if (n <= buf.length) return;
+        char[] grown = Arrays.copyOf(buf, Math.max(n, buf.length * 2));
+        Arrays.fill(buf, '\0');
+        buf = grown;
+    }
+}
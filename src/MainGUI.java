@@ -1,16 +1,18 @@
 import javax.swing.*;
 import javax.swing.event.*;
 import javax.swing.table.*;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
 import java.awt.*;
 import java.awt.datatransfer.*;
 import java.awt.event.*;
 import java.io.*;
+import java.nio.CharBuffer;
 import java.nio.file.*;
-import java.security.SecureRandom;
-import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.List;
-import java.util.regex.*;
+import java.util.concurrent.*;
 
 public class MainGUI extends JFrame {
     // UI components
@@ -26,16 +28,43 @@ public class MainGUI extends JFrame {
     private final JProgressBar bar = new JProgressBar(0, 100);
     private final JTextArea suggestionsArea = new JTextArea(6, 36);
 
-    private final DefaultTableModel historyModel = new DefaultTableModel(
-            new String[]{"#", "Password (masked)", "Password (raw)", "Score", "Verdict", "Time"}, 0);
+    private final HistoryStore history = HistoryStore.fromProperties(); // EDT only; writes also hold reuseLock
+    private final HistoryTableModel historyModel = new HistoryTableModel(history);
 
     private final JTable historyTable = new JTable(historyModel);
-    private final SecureRandom rnd = new SecureRandom();
-
-    private static final Set<String> COMMON_PASSWORDS = new HashSet<>(Arrays.asList(
-            "password", "123456", "123456789", "qwerty", "abc123", "111111",
-            "password1", "12345678", "iloveyou", "admin", "welcome", "letmein"
-    ));
+    private final PasswordGenerator generator = new PasswordGenerator();
+    private final PasswordScorer scorer = new PasswordScorer(); // EDT only
+    private final ScoreCache cache = ScoreCache.shared();       // null when disabled
+    private final ScoreCache.Entry scored = new ScoreCache.Entry(); // EDT only
+
+    // Detector record id = history sequence number - reuseBase - 1; it reads the passwords back from
+    // the store. In a capped store it is rebuilt from the live rows once evicted records outnumber them.
+    // Used from the EDT (commits), the live-scorer thread (find) and the rebuild thread, so the
+    // detector, its base and every write to the history it reads are guarded by reuseLock.
+    private final Object reuseLock = new Object();
+    private ReuseDetector reuse = detectorFrom(0); // guarded by reuseLock
+    private long reuseBase;                        // guarded by reuseLock
+    private boolean reuseRebuilding;               // guarded by reuseLock
+
+    // The field's text is read through a partial-return Segment straight into this buffer, which is
+    // wiped after every use: no String and no getPassword() array per read.
+    private final Segment readSegment = new Segment(); // EDT only
+    private char[] pwdBuffer = new char[64];           // EDT only
+
+    // Live scoring: cheap features are kept incrementally on the EDT; whole-password lookups run
+    // debounced on a single background thread and only the latest result is rendered.
+    private static final int LIVE_DEBOUNCE_MS = 80;
+    private final IncrementalScorer liveState = new IncrementalScorer(); // EDT only
+    private final Segment liveSegment = new Segment();                   // EDT only
+    private final PasswordScorer liveScorer = new PasswordScorer();      // live-scorer thread only
+    private final ScoreCache.Entry liveScored = new ScoreCache.Entry();  // live-scorer thread only
+    private final ScheduledExecutorService liveExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "live-scorer");
+        t.setDaemon(true);
+        return t;
+    });
+    private long liveGeneration;   // EDT only
+    private LiveCheck pendingCheck; // EDT only
     private TableColumn hiddenPasswordColumn = null;
 
     public MainGUI() {
@@ -83,6 +112,7 @@ public class MainGUI extends JFrame {
         historyTable.setFillsViewportHeight(true);
         historyTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         historyTable.getColumnModel().getColumn(0).setMaxWidth(40);
+        historyTable.setDefaultRenderer(CharSequence.class, new HistoryTableModel.PasswordRenderer());
 
         JScrollPane histScroll = new JScrollPane(historyTable);
         histScroll.setPreferredSize(new Dimension(540, 160));
@@ -108,19 +138,21 @@ public class MainGUI extends JFrame {
 
         // === Actions ===
         showBox.addActionListener(e -> toggleShow(showBox.isSelected()));
-        copyBtn.addActionListener(e -> copyToClipboard(String.valueOf(pwdField.getPassword())));
+        copyBtn.addActionListener(e -> copyCurrentPassword());
         clearBtn.addActionListener(e -> {
             pwdField.setText("");
-            updateUIFor("");
+            showEmptyState();
         });
         exportBtn.addActionListener(e -> exportCSV());
         genBtn.addActionListener(e -> generateMaxStrengthPassword());
 
-        // Live update while typing
+        // Live update while typing; inserted text is read in place, see liveInsert
+        liveSegment.setPartialReturn(true);
+        readSegment.setPartialReturn(true);
         pwdField.getDocument().addDocumentListener(new DocumentListener() {
-            public void insertUpdate(DocumentEvent e) { liveUpdate(); }
-            public void removeUpdate(DocumentEvent e) { liveUpdate(); }
-            public void changedUpdate(DocumentEvent e) { liveUpdate(); }
+            public void insertUpdate(DocumentEvent e) { liveInsert(e); }
+            public void removeUpdate(DocumentEvent e) { liveRemove(e); }
+            public void changedUpdate(DocumentEvent e) { } // attribute changes only; text is unchanged
         });
 
         // Pressing Enter logs the current password
@@ -134,16 +166,8 @@ public class MainGUI extends JFrame {
                 int col = historyTable.columnAtPoint(e.getPoint());
 
                 // only respond if clicking the masked password column
-                if (col == 1 && row >= 0) {
-                    String masked = historyModel.getValueAt(row, 1).toString();
-                    String raw = historyModel.getValueAt(row, 2).toString();
-
-                    // toggle
-                    if (masked.contains("*")) {
-                        historyModel.setValueAt(raw, row, 1);
-                    } else {
-                        historyModel.setValueAt(maskForHistory(raw), row, 1);
-                    }
+                if (historyTable.convertColumnIndexToModel(col) == HistoryTableModel.COL_MASKED && row >= 0) {
+                    historyModel.toggleReveal(historyTable.convertRowIndexToModel(row));
                 }
             }
         });
@@ -154,26 +178,140 @@ public class MainGUI extends JFrame {
         pwdField.setEchoChar(show ? (char)0 : '\u2022');
     }
 
-    private void liveUpdate() {
-        updateUIFor(String.valueOf(pwdField.getPassword()));
+    // Partial returns hand out the document's own array piece by piece instead of copying across
+    // its gap into a fresh (unwipeable) array
+    private void liveInsert(DocumentEvent e) {
+        try {
+            for (int done = 0; done < e.getLength(); done += liveSegment.count) {
+                e.getDocument().getText(e.getOffset() + done, e.getLength() - done, liveSegment);
+                liveState.insert(e.getOffset() + done, liveSegment);
+            }
+        } catch (BadLocationException ex) {
+            resyncLiveState(e.getDocument());
+            return;
+        }
+        scheduleLiveCheck();
+    }
+
+    private void liveRemove(DocumentEvent e) {
+        liveState.remove(e.getOffset(), e.getLength());
+        scheduleLiveCheck();
     }
 
-    private void updateUIFor(String pwd) {
-        if (pwd == null || pwd.isBlank()) {
-            verdictLabel.setText("Type password...");
-            suggestionsArea.setText("Enter a password to see actionable suggestions.");
-            bar.setValue(0);
-            scoreLabel.setText("0/100");
-            bar.setForeground(Color.RED);
+    // Fallback if an event can't be applied as a delta: rebuild from the whole document
+    private void resyncLiveState(Document doc) {
+        liveState.clear();
+        try {
+            for (int done = 0; done < doc.getLength(); done += liveSegment.count) {
+                doc.getText(done, doc.getLength() - done, liveSegment);
+                liveState.insert(done, liveSegment);
+            }
+        } catch (BadLocationException ignored) {
+            // empty document
+        }
+        scheduleLiveCheck();
+    }
+
+    // Coalesces bursts of edits: any pending check is cancelled and replaced by one for the latest text
+    private void scheduleLiveCheck() {
+        long generation = ++liveGeneration;
+        if (pendingCheck != null && pendingCheck.future.cancel(false)) pendingCheck.wipe();
+        pendingCheck = null;
+        if (liveState.length() == 0) {
+            showEmptyState();
             return;
         }
-        int score = computeScore(pwd);
+        char[] text = liveState.snapshot();
+        LiveCheck check = new LiveCheck(generation, text, liveState.features(new PasswordScorer.Features()));
+        check.future = liveExecutor.schedule(check, LIVE_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+        pendingCheck = check;
+    }
+
+    /** Runs the whole-password lookups for one snapshot off the EDT, then renders if still current. */
+    private final class LiveCheck implements Runnable {
+        final long generation;
+        final char[] text;
+        final PasswordScorer.Features features;
+        volatile Future<?> future;
+
+        LiveCheck(long generation, char[] text, PasswordScorer.Features features) {
+            this.generation = generation;
+            this.text = text;
+            this.features = features;
+        }
+
+        @Override
+        public void run() {
+            try {
+                boolean blank = isBlank(text);
+                CharBuffer pwd = CharBuffer.wrap(text);
+                ScoreCache.Entry e = liveScored;
+                PolicySet policies = PolicySet.current();
+                long key = cache != null ? cache.key(pwd, policies) : 0;
+                if (cache == null || !cache.get(key, e)) {
+                    // the EDT already has the cheap features; only the lookups remain
+                    liveScorer.lookup(pwd, features);
+                    ScoreCache.fill(features, policies, e);
+                    if (cache != null) cache.put(key, e);
+                }
+                int score = e.score;
+                int codes = e.codes;
+                long similarTo; // history sequence number, 0 if none
+                synchronized (reuseLock) {
+                    similarTo = sequenceOf(reuse.find(pwd));
+                }
+                SwingUtilities.invokeLater(() -> {
+                    if (generation != liveGeneration) return; // superseded by a newer edit
+                    if (blank) showEmptyState();
+                    else showScore(score, codes, similarTo);
+                });
+            } finally {
+                wipe();
+            }
+        }
+
+        void wipe() {
+            Arrays.fill(text, '\0');
+        }
+    }
+
+    private static boolean isBlank(char[] text) {
+        return isBlank(text, text.length);
+    }
+
+    private static boolean isBlank(char[] text, int len) {
+        for (int i = 0; i < len; i++) if (!Character.isWhitespace(text[i])) return false;
+        return true;
+    }
+
+    private void updateUIFor(char[] pwd) {
+        if (isBlank(pwd)) {
+            showEmptyState();
+            return;
+        }
+        ScoreCache.Entry e = scoreOf(CharBuffer.wrap(pwd));
+        showScore(e.score, e.codes, 0);
+    }
+
+    private void showEmptyState() {
+        verdictLabel.setText("Type password...");
+        suggestionsArea.setText("Enter a password to see actionable suggestions.");
+        bar.setValue(0);
+        scoreLabel.setText("0/100");
+        bar.setForeground(Color.RED);
+    }
+
+    private void showScore(int score, int suggestionCodes, long similarTo) {
         String verdict = classifyScore(score);
+        if (similarTo > 0) {
+            verdict += " (similar to #" + similarTo + ")";
+            suggestionCodes = PasswordScorer.withReuse(suggestionCodes);
+        }
         verdictLabel.setText(verdict);
         scoreLabel.setText(score + "/100");
         bar.setValue(score);
         setBarColor(score);
-        suggestionsArea.setText(makeSuggestions(pwd, score));
+        suggestionsArea.setText(PasswordScorer.formatSuggestions(suggestionCodes));
     }
 
     private void setBarColor(int score) {
@@ -183,150 +321,175 @@ public class MainGUI extends JFrame {
     }
 
     private void commitCurrentPassword() {
-        String pwd = String.valueOf(pwdField.getPassword());
-        if (pwd == null || pwd.isBlank()) return;
-
-        int score = computeScore(pwd);
-        String verdict = classifyScore(score);
-        String masked = maskForHistory(pwd);
-        String time = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
-
-        historyModel.addRow(new Object[]{
-                historyModel.getRowCount() + 1,
-                masked,
-                pwd,
-                score,
-                verdict,
-                time
-        });
+        int n = readPassword();
+        try {
+            if (isBlank(pwdBuffer, n)) return;
+            CharBuffer pwd = CharBuffer.wrap(pwdBuffer, 0, n);
+            ScoreCache.Entry e = scoreOf(pwd);
+            synchronized (reuseLock) {
+                long similarTo = sequenceOf(reuse.add(pwd));
+                historyModel.append(pwdBuffer, 0, n, e.score, e.breaches, similarTo, System.currentTimeMillis());
+                if (history.cap() > 0 && reuse.size() >= 2 * history.cap() && !reuseRebuilding) {
+                    reuseRebuilding = true;
+                    Thread t = new Thread(this::rebuildReuse, "reuse-rebuild");
+                    t.setDaemon(true);
+                    t.start();
+                }
+            }
+        } finally {
+            Arrays.fill(pwdBuffer, 0, n, '\0');
+        }
     }
 
-
-    private String maskForHistory(String pwd) {
-        if (pwd.length() <= 2) return "*".repeat(pwd.length());
-        return pwd.charAt(0) + "*".repeat(Math.max(0, pwd.length() - 2)) + pwd.charAt(pwd.length() - 1);
+    // History sequence number of detector record id, 0 for none (-1). Holds reuseLock.
+    private long sequenceOf(int id) {
+        return id < 0 ? 0 : reuseBase + id + 1;
     }
 
-    // Password computation (updated so 100 is attainable)
-    public static String classifyScore(int score) {
-        if (score < 25) return "Very Weak";
-        else if (score < 40) return "Weak";
-        else if (score < 60) return "Moderate";
-        else if (score < 80) return "Strong";
-        else return "Very Strong";
+    // Detector whose record id is history sequence number base + id + 1. Only used under reuseLock.
+    private ReuseDetector detectorFrom(long base) {
+        return new ReuseDetector(id -> historyPassword(base + id + 1));
     }
 
-    private static int computeScore(String password) {
-        int score = 0;
-        double entropy = estimateEntropy(password);
-
-        // Increased length influence so 100 can be reached for long diverse passwords
-        score += Math.min(password.length() * 3, 60); // up to 60 points for length
-
-        boolean hasLower = Pattern.compile("[a-z]").matcher(password).find();
-        boolean hasUpper = Pattern.compile("[A-Z]").matcher(password).find();
-        boolean hasDigit = Pattern.compile("\\d").matcher(password).find();
-        boolean hasSpecial = Pattern.compile("[^A-Za-z0-9]").matcher(password).find();
-
-        int diversity = (hasLower ? 1 : 0) + (hasUpper ? 1 : 0) + (hasDigit ? 1 : 0) + (hasSpecial ? 1 : 0);
-        score += diversity * 8;
-
-        // penalties
-        if (Pattern.compile("(.)\\1{2,}").matcher(password).find()) score -= 6; // repetition
-        if (containsSequence(password)) score -= 6; // sequences
-        if (COMMON_PASSWORDS.contains(password.toLowerCase())) score -= 20; // exact common password
-
-        // entropy influence
-        if (entropy > 60) score += 15;
-        else if (entropy > 45) score += 8;
-        else if (entropy < 28) score -= 6;
-
-        return Math.max(0, Math.min(score, 100));
+    // Password with this sequence number while it is still in the history, else null. Holds reuseLock.
+    private CharSequence historyPassword(long sequence) {
+        if (history.size() == 0) return null;
+        long row = sequence - history.sequence(0);
+        return row >= 0 && row < history.size() ? history.password((int) row) : null;
     }
 
-    private static double estimateEntropy(String password) {
-        int charSpace = 0;
-        if (password.matches(".*[a-z].*")) charSpace += 26;
-        if (password.matches(".*[A-Z].*")) charSpace += 26;
-        if (password.matches(".*[0-9].*")) charSpace += 10;
-        if (password.matches(".*[^A-Za-z0-9].*")) charSpace += 32;
-        if (charSpace == 0) return 0.0;
-        return password.length() * (Math.log(charSpace) / Math.log(2));
+    // Drops the evicted records' table entries: a fresh detector over the live rows, oldest first,
+    // swapped in once it has caught up. Runs on its own thread and takes reuseLock one row at a
+    // time, so neither commits nor live checks wait for more than a single add.
+    private void rebuildReuse() {
+        long base;
+        synchronized (reuseLock) {
+            base = history.sequence(0) - 1;
+        }
+        ReuseDetector fresh = detectorFrom(base);
+        for (long seq = base + 1; ; seq++) {
+            synchronized (reuseLock) {
+                CharSequence pwd = historyPassword(seq);
+                if (pwd != null) fresh.add(pwd);
+                else if (seq < history.sequence(0)) fresh.skip(); // evicted meanwhile
+                else {                                            // caught up with the history
+                    reuse = fresh;
+                    reuseBase = base;
+                    reuseRebuilding = false;
+                    return;
+                }
+            }
+        }
     }
 
-    private static boolean containsSequence(String s) {
-        String lower = s.toLowerCase();
-        for (int i = 0; i < lower.length() - 2; i++) {
-            char c1 = lower.charAt(i);
-            char c2 = lower.charAt(i + 1);
-            char c3 = lower.charAt(i + 2);
-            if ((c2 == c1 + 1 && c3 == c2 + 1) || (c2 == c1 - 1 && c3 == c2 - 1)) return true;
+    // Copies the field's text into pwdBuffer (grown as needed, old one wiped); returns its length.
+    // Callers wipe pwdBuffer[0, n) when done.
+    private int readPassword() {
+        Document doc = pwdField.getDocument();
+        int n = doc.getLength();
+        if (pwdBuffer.length < n) {
+            Arrays.fill(pwdBuffer, '\0');
+            pwdBuffer = new char[Math.max(n, pwdBuffer.length * 2)];
+        }
+        try {
+            for (int done = 0; done < n; done += readSegment.count) {
+                doc.getText(done, n - done, readSegment);
+                System.arraycopy(readSegment.array, readSegment.offset, pwdBuffer, done, readSegment.count);
+            }
+        } catch (BadLocationException e) {
+            Arrays.fill(pwdBuffer, 0, n, '\0'); // the document changed under us; EDT-only, so not expected
+            return 0;
         }
-        return false;
+        return n;
+    }
+
+    // EDT scoring through the shared cache; the returned entry is reused by the next call
+    private ScoreCache.Entry scoreOf(CharSequence pwd) {
+        if (cache != null) return cache.score(scorer, pwd, scored);
+        return ScoreCache.fill(scorer.scan(pwd), scored);
     }
 
-    private String makeSuggestions(String pwd, int score) {
-        List<String> s = new ArrayList<>();
-        if (COMMON_PASSWORDS.contains(pwd.toLowerCase())) s.add("Common password — change immediately.");
-        if (pwd.length() < 12) s.add("Increase length to 12+ characters.");
-        if (!Pattern.compile("[A-Z]").matcher(pwd).find()) s.add("Add uppercase letters.");
-        if (!Pattern.compile("[a-z]").matcher(pwd).find()) s.add("Add lowercase letters.");
-        if (!Pattern.compile("\\d").matcher(pwd).find()) s.add("Add digits.");
-        if (!Pattern.compile("[^A-Za-z0-9]").matcher(pwd).find()) s.add("Add symbols.");
-        if (Pattern.compile("(.)\\1{2,}").matcher(pwd).find()) s.add("Avoid repeated characters.");
-        if (containsSequence(pwd)) s.add("Avoid simple sequences.");
-        if (score >= 100) s.add("This password is maxed out. Military-grade.");
-        if (s.isEmpty()) s.add("Looks good. Consider lengthening further for extra safety.");
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < s.size(); i++) sb.append(i + 1).append(". ").append(s.get(i)).append("\n");
-        return sb.toString();
+    // Password computation (updated so 100 is attainable)
+    public static String classifyScore(int score) {
+        return PasswordScorer.classify(score);
     }
 
     // Utilities
+    private void copyCurrentPassword() {
+        int n = readPassword();
+        try {
+            // the clipboard only takes a String; this is the one place the password becomes one
+            if (n > 0) copyToClipboard(new String(pwdBuffer, 0, n));
+        } finally {
+            Arrays.fill(pwdBuffer, 0, n, '\0');
+        }
+    }
+
     private void copyToClipboard(String text) {
         if (text == null || text.isEmpty()) return;
         Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(text), null);
         JOptionPane.showMessageDialog(this, "Password copied to clipboard (be careful).", "Copied", JOptionPane.INFORMATION_MESSAGE);
     }
 
-    // --- UPDATED EXPORT: exports real (unmasked) passwords ---
+    // --- EXPORT: real (unmasked) passwords, written off the EDT with progress and cancel ---
     private void exportCSV() {
-        if (historyModel.getRowCount() == 0) {
+        if (history.size() == 0) {
             JOptionPane.showMessageDialog(this, "No history to export.", "Empty", JOptionPane.WARNING_MESSAGE);
             return;
         }
 
         JFileChooser fc = new JFileChooser();
-        fc.setDialogTitle("Export History CSV");
+        fc.setDialogTitle("Export History (.csv, .csv.gz or columnar .pwh)");
         if (fc.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
 
         File file = fc.getSelectedFile();
-        if (!file.getName().toLowerCase().endsWith(".csv"))
+        String name = file.getName().toLowerCase();
+        if (!name.endsWith(".csv") && !name.endsWith(".csv.gz") && !name.endsWith(".pwh"))
             file = new File(file.getParentFile(), file.getName() + ".csv");
+        Path target = file.toPath();
+        HistoryExporter.Format format = HistoryExporter.formatFor(target);
 
-        try (BufferedWriter bw = Files.newBufferedWriter(file.toPath())) {
-            // write header
-            bw.write("Index,Password,Score,Verdict,Time\n");
-
-            // now export actual password (raw column) instead of masked
-            for (int r = 0; r < historyModel.getRowCount(); r++) {
-                String idx = historyModel.getValueAt(r, 0).toString();
-                String rawPwd = historyModel.getValueAt(r, 2).toString(); // column 2 = raw password
-                String score = historyModel.getValueAt(r, 3).toString();
-                String verdict = historyModel.getValueAt(r, 4).toString();
-                String time = historyModel.getValueAt(r, 5).toString();
-
-                // escape quotes and commas if needed
-                rawPwd = "\"" + rawPwd.replace("\"", "\"\"") + "\"";
-                bw.write(String.format("%s,%s,%s,%s,%s%n", idx, rawPwd, score, verdict, time));
-            }
+        HistoryStore snapshot = history.snapshot(); // later appends don't race the export
+        int rows = snapshot.size();
+        ProgressMonitor monitor = new ProgressMonitor(this, "Exporting " + rows + " entries…", null, 0, rows);
+        monitor.setMillisToDecideToPopup(200);
+        exportBtn.setEnabled(false);
 
-            JOptionPane.showMessageDialog(this, "Exported (unmasked) passwords to:\n" + file.getAbsolutePath(),
-                    "Export Complete", JOptionPane.INFORMATION_MESSAGE);
+        SwingWorker<Void, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                try {
+                    new HistoryExporter().export(snapshot, target, format,
+                            done -> setProgress((int) (100L * done / Math.max(rows, 1))));
+                } finally {
+                    snapshot.clear(); // wipes the copied passwords
+                }
+                return null;
+            }
 
-        } catch (IOException ex) {
-            JOptionPane.showMessageDialog(this, "Export failed: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
+            @Override
+            protected void done() {
+                monitor.close();
+                exportBtn.setEnabled(true);
+                if (isCancelled()) return;
+                try {
+                    get();
+                    JOptionPane.showMessageDialog(MainGUI.this, "Exported (unmasked) passwords to:\n" + target.toAbsolutePath(),
+                            "Export Complete", JOptionPane.INFORMATION_MESSAGE);
+                } catch (InterruptedException | CancellationException ignored) {
+                    // cancelled from the monitor
+                } catch (ExecutionException ex) {
+                    JOptionPane.showMessageDialog(MainGUI.this, "Export failed: " + ex.getCause().getMessage(),
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        worker.addPropertyChangeListener(evt -> {
+            if (!"progress".equals(evt.getPropertyName())) return;
+            if (monitor.isCanceled()) worker.cancel(true);
+            else monitor.setProgress((int) ((long) rows * worker.getProgress() / 100));
+        });
+        worker.execute();
     }
 
 
@@ -335,38 +498,25 @@ public class MainGUI extends JFrame {
         final int FIXED_LENGTH = 26; // fixed length for max-strength
         genBtn.setEnabled(false);
         genBtn.setText("Generating...");
-        SwingWorker<String, Void> worker = new SwingWorker<>() {
+        SwingWorker<char[], Void> worker = new SwingWorker<>() {
             @Override
-            protected String doInBackground() throws Exception {
-                // deterministic constructive build first
-                String pwd = constructGuaranteedStrongPassword(FIXED_LENGTH);
-                if (computeScore(pwd) >= 100) return pwd;
-
-                // mutate the deterministic candidate a number of times (preserves fixed length)
-                for (int attempt = 0; attempt < 2000; attempt++) {
-                    String candidate = mutatePasswordKeepLength(pwd);
-                    if (computeScore(candidate) >= 100) return candidate;
-                }
-
-                // fallback: randomized builds of same fixed length
-                for (int attempt = 0; attempt < 5000; attempt++) {
-                    String candidate = generatePassword(FIXED_LENGTH);
-                    if (computeScore(candidate) >= 100) return candidate;
-                }
-
-                // last resort: return the deterministic candidate (very likely very strong)
+            protected char[] doInBackground() throws Exception {
+                char[] pwd = new char[FIXED_LENGTH];
+                generator.fill(pwd, 0, FIXED_LENGTH);
                 return pwd;
             }
 
             @Override
             protected void done() {
+                char[] result = null;
                 try {
-                    String result = get();
-                    pwdField.setText(result);
+                    result = get();
+                    pwdField.setText(new String(result)); // Document.insertString only takes a String
                     updateUIFor(result);
                 } catch (Exception ex) {
                     JOptionPane.showMessageDialog(MainGUI.this, "Generation failed: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
                 } finally {
+                    if (result != null) Arrays.fill(result, '\0');
                     genBtn.setEnabled(true);
                     genBtn.setText("Generate (Max Strength)");
                 }
@@ -375,105 +525,6 @@ public class MainGUI extends JFrame {
         worker.execute();
     }
 
-    // Construct a strong fixed-length password that avoids repeats/sequences and ensures diversity.
-    private String constructGuaranteedStrongPassword(int length) {
-        final String lowers = "abcdefghijklmnopqrstuvwxyz";
-        final String uppers = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
-        final String digits = "0123456789";
-        final String specials = "!@#$%^&*()-_=+[]{};:,.<>?/";
-        final String all = lowers + uppers + digits + specials;
-
-        // Start with guaranteed diversity seeds
-        StringBuilder sb = new StringBuilder(length);
-        sb.append(lowers.charAt(rnd.nextInt(lowers.length())));
-        sb.append(uppers.charAt(rnd.nextInt(uppers.length())));
-        sb.append(digits.charAt(rnd.nextInt(digits.length())));
-        sb.append(specials.charAt(rnd.nextInt(specials.length())));
-
-        // Fill the rest carefully to avoid simple patterns and long repeats
-        char last = sb.charAt(sb.length() - 1);
-        for (int i = 4; i < length; i++) {
-            char pick;
-            int tries = 0;
-            do {
-                pick = all.charAt(rnd.nextInt(all.length()));
-                tries++;
-                if (pick == last) continue; // avoid immediate repeats
-                // avoid making an increasing or decreasing 3-char sequence
-                if (i >= 2) {
-                    char c1 = sb.charAt(i - 2);
-                    char c2 = sb.charAt(i - 1);
-                    if ((c2 == c1 + 1 && pick == c2 + 1) || (c2 == c1 - 1 && pick == c2 - 1)) continue;
-                }
-                if (tries > 25) break; // accept pick after many tries
-                break;
-            } while (true);
-            sb.append(pick);
-            last = pick;
-        }
-
-        // Shuffle to break constructed ordering
-        List<Character> chars = new ArrayList<>();
-        for (char c : sb.toString().toCharArray()) chars.add(c);
-        Collections.shuffle(chars, rnd);
-        StringBuilder out = new StringBuilder();
-        for (char c : chars) out.append(c);
-
-        // Final quick sanitization: ensure all 4 classes exist (if any missing, force-insert)
-        String candidate = out.toString();
-        boolean hasLower = Pattern.compile("[a-z]").matcher(candidate).find();
-        boolean hasUpper = Pattern.compile("[A-Z]").matcher(candidate).find();
-        boolean hasDigit = Pattern.compile("\\d").matcher(candidate).find();
-        boolean hasSpecial = Pattern.compile("[^A-Za-z0-9]").matcher(candidate).find();
-
-        StringBuilder finalSb = new StringBuilder(candidate);
-        int idx = 0;
-        if (!hasLower) finalSb.setCharAt(idx++ % length, lowers.charAt(rnd.nextInt(lowers.length())));
-        if (!hasUpper) finalSb.setCharAt(idx++ % length, uppers.charAt(rnd.nextInt(uppers.length())));
-        if (!hasDigit) finalSb.setCharAt(idx++ % length, digits.charAt(rnd.nextInt(digits.length())));
-        if (!hasSpecial) finalSb.setCharAt(idx++ % length, specials.charAt(rnd.nextInt(specials.length())));
-
-        return finalSb.toString();
-    }
-
-    // Slight mutation that preserves fixed length: swap two positions and replace one random char
-    private String mutatePasswordKeepLength(String base) {
-        char[] arr = base.toCharArray();
-        // swap two random positions
-        int i = rnd.nextInt(arr.length);
-        int j = rnd.nextInt(arr.length);
-        char tmp = arr[i];
-        arr[i] = arr[j];
-        arr[j] = tmp;
-        // replace a random position with a random char from full space
-        final String all = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789!@#$%^&*()-_=+[]{};:,.<>?/";
-        arr[rnd.nextInt(arr.length)] = all.charAt(rnd.nextInt(all.length()));
-        return new String(arr);
-    }
-
-    // Randomized fixed-length generator for fallback
-    private String generatePassword(int length) {
-        final String lowers = "abcdefghijklmnopqrstuvwxyz";
-        final String uppers = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
-        final String digits = "0123456789";
-        final String specials = "!@#$%^&*()-_=+[]{};:,.<>?/";
-        final String all = lowers + uppers + digits + specials;
-
-        StringBuilder sb = new StringBuilder(length);
-        // seed with diversity to increase odds
-        sb.append(lowers.charAt(rnd.nextInt(lowers.length())));
-        sb.append(uppers.charAt(rnd.nextInt(uppers.length())));
-        sb.append(digits.charAt(rnd.nextInt(digits.length())));
-        sb.append(specials.charAt(rnd.nextInt(specials.length())));
-        for (int i = 4; i < length; i++) sb.append(all.charAt(rnd.nextInt(all.length())));
-        List<Character> chars = new ArrayList<>();
-        for (char c : sb.toString().toCharArray()) chars.add(c);
-        Collections.shuffle(chars, rnd);
-        StringBuilder result = new StringBuilder();
-        for (char c : chars) result.append(c);
-        return result.toString();
-    }
-
     public static void main(String[] args) {
         try { UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName()); } catch (Exception ignored) {}
         SwingUtilities.invokeLater(MainGUI::new);
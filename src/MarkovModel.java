@@ -0,0 +1,251 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+
+/**
+ * Memory-mapped character Markov model: how many bits a password costs an attacker who guesses
+ * in order of likelihood under a model trained on leaked passwords.
+ *
+ * The trainer counts, over a local corpus (one password per line), every character after each of
+ * its 0 to {@code order - 1} preceding characters (the start of a password padded with a start
+ * symbol, plus an end symbol after the last character) and stores −log2 P(char | context) for
+ * each seen pair, quantized to 1/8 bit in one byte, in a flat table indexed by a hash of
+ * (context length, context, char). Scoring walks the password once: each character costs its
+ * longest seen context, plus {@link #BACKOFF_BITS} per context shortened (stupid backoff), or
+ * {@link #UNSEEN_BITS} if the corpus never had it at all. Hash collisions can only make a pair look
+ * seen, i.e. the estimate errs towards weaker.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   "PWDMRKV1" | passwords:long | order:int | tableBits:int
+ *   costs: byte[2^tableBits]   (eighths of a bit, 255 = unseen)
+ * </pre>
+ * The table is read in place through the mapping, so loading is instant and costs no heap.
+ */
+public final class MarkovModel {
+
+    private static final byte[] MAGIC = "PWDMRKV1".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER = 24;
+    private static final int UNSEEN = 255;
+    private static final char START = '\ufffe', END = '\uffff'; // noncharacters, never in a password
+    /** Extra cost per context shortened for an unseen pair; stupid backoff's factor 0.4. */
+    static final double BACKOFF_BITS = 1.32;
+    /** Cost of a character the corpus never contained. */
+    static final double UNSEEN_BITS = 12;
+
+    private final MappedByteBuffer map;
+    private final long passwords;
+    private final int order;
+    private final int mask;
+
+    private MarkovModel(MappedByteBuffer map) throws IOException {
+        this.map = map;
+        byte[] magic = new byte[MAGIC.length];
+        map.get(0, magic);
+        if (!Arrays.equals(magic, MAGIC)) throw new IOException("Not a Markov model");
+        this.passwords = map.getLong(8);
+        this.order = map.getInt(16);
+        int bits = map.getInt(20);
+        if (order < 1 || order > 8 || bits < 8 || bits > 30) throw new IOException("Bad Markov model header");
+        this.mask = (1 << bits) - 1;
+        if (HEADER + (long) mask + 1 > map.capacity()) throw new IOException("Truncated Markov model");
+    }
+
+    public static MarkovModel open(Path model) throws IOException {
+        try (FileChannel ch = FileChannel.open(model, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) throw new IOException("Markov model too large to map: " + ch.size());
+            return new MarkovModel(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        }
+    }
+
+    private static final class Shared {
+        static final MarkovModel INSTANCE = load();
+
+        private static MarkovModel load() {
+            String path = System.getProperty("pwdchk.markov");
+            if (path == null || path.isEmpty()) return null;
+            try {
+                return open(Paths.get(path));
+            } catch (IOException e) {
+                System.err.println("Markov model unavailable (" + path + "): " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    /** Model named by the {@code pwdchk.markov} system property, or null if none is configured. */
+    public static MarkovModel shared() {
+        return Shared.INSTANCE;
+    }
+
+    /** Passwords the model was trained on. */
+    public long passwords() {
+        return passwords;
+    }
+
+    public int order() {
+        return order;
+    }
+
+    /** −log2 of the password's probability under the model, in bits; allocation-free. */
+    public double bits(CharSequence pwd) {
+        int n = pwd.length();
+        double bits = 0;
+        for (int i = 0; i <= n; i++) {
+            char c = i < n ? pwd.charAt(i) : END;
+            double cost = UNSEEN_BITS;
+            for (int k = order - 1; k >= 0; k--) { // longest context first
+                int q = map.get(HEADER + index(pwd, i, k, c)) & 0xff;
+                if (q != UNSEEN) {
+                    cost = q / 8.0 + (order - 1 - k) * BACKOFF_BITS;
+                    break;
+                }
+            }
+            bits += cost;
+        }
+        return bits;
+    }
+
+    /**
+     * Share of the table holding a cost. Far above a half, unseen pairs keep landing on seen slots
+     * and the model underrates passwords; retrain with more table bits.
+     */
+    public double fill() {
+        long used = 0;
+        for (int i = 0; i <= mask; i++) if ((map.get(HEADER + i) & 0xff) != UNSEEN) used++;
+        return used / (mask + 1.0);
+    }
+
+    /** {@link #bits} as a guess count, log10. */
+    public double guessesLog10(CharSequence pwd) {
+        return bits(pwd) * Math.log10(2);
+    }
+
+    private int index(CharSequence pwd, int i, int k, char c) {
+        return (int) pairHash(contextHash(pwd, i, k), c) & mask;
+    }
+
+    // Hash of the k characters before position i, START-padded before the password
+    private static long contextHash(CharSequence pwd, int i, int k) {
+        long h = 0x9e3779b97f4a7c15L + k;
+        for (int j = i - k; j < i; j++) h = (h ^ (j < 0 ? START : pwd.charAt(j))) * 0x100000001b3L;
+        return mix(h);
+    }
+
+    private static long pairHash(long context, char c) {
+        return mix(context ^ c * 0xc2b2ae3d27d4eb4fL);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    // --- Trainer (one-time, offline) ---
+
+    /**
+     * Trains a model of the given order (3 or 4 suit password corpora) from a UTF-8 list. Holds
+     * two int tables of {@code 2^tableBits} entries on the heap while counting (128 MB at the
+     * default 24 bits); the model file is a quarter of that. Bytes that are not UTF-8 (rockyou has
+     * Latin-1 lines) decode to U+FFFD, the same way in both passes over the corpus.
+     */
+    public static long build(Path corpus, Path model, int order, int tableBits) throws IOException {
+        if (order < 1 || order > 8) throw new IllegalArgumentException("order must be 1..8: " + order);
+        if (tableBits < 8 || tableBits > 30) throw new IllegalArgumentException("table bits must be 8..30: " + tableBits);
+        int mask = (1 << tableBits) - 1;
+        int[] pairs = new int[mask + 1];    // count of (context, char)
+        int[] contexts = new int[mask + 1]; // count of context, in the same hash space
+        long n = 0;
+        try (BufferedReader r = reader(corpus)) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                n++;
+                for (int i = 0; i <= line.length(); i++) {
+                    char c = i < line.length() ? line.charAt(i) : END;
+                    for (int k = order - 1; k >= 0; k--) {
+                        long ctx = contextHash(line, i, k);
+                        increment(pairs, (int) pairHash(ctx, c) & mask);
+                        increment(contexts, (int) ctx & mask);
+                    }
+                }
+            }
+        }
+
+        // −log2((contextCount + 1) / pairCount): the +1 leaves some mass for unseen pairs. A pair's
+        // context is found again by replaying the corpus, since the table keeps no keys.
+        byte[] costs = new byte[mask + 1];
+        Arrays.fill(costs, (byte) UNSEEN);
+        try (BufferedReader r = reader(corpus)) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                for (int i = 0; i <= line.length(); i++) {
+                    char c = i < line.length() ? line.charAt(i) : END;
+                    for (int k = order - 1; k >= 0; k--) {
+                        long ctx = contextHash(line, i, k);
+                        int p = (int) pairHash(ctx, c) & mask;
+                        if (costs[p] != (byte) UNSEEN) continue;
+                        double bits = Math.log((contexts[(int) ctx & mask] + 1.0) / pairs[p]) / Math.log(2);
+                        costs[p] = (byte) Math.max(0, Math.min(UNSEEN - 1, Math.round(bits * 8)));
+                    }
+                }
+            }
+        }
+
+        try (FileChannel ch = FileChannel.open(model, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            header.put(MAGIC).putLong(n).putInt(order).putInt(tableBits).flip();
+            while (header.hasRemaining()) ch.write(header);
+            ByteBuffer body = ByteBuffer.wrap(costs);
+            while (body.hasRemaining()) ch.write(body);
+        }
+        return n;
+    }
+
+    // UTF-8 reader that replaces malformed input instead of throwing; deterministic, so the second
+    // pass sees exactly the lines the first one counted
+    private static BufferedReader reader(Path corpus) throws IOException {
+        return new BufferedReader(new InputStreamReader(Files.newInputStream(corpus), StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)));
+    }
+
+    private static void increment(int[] counts, int i) {
+        if (counts[i] != Integer.MAX_VALUE) counts[i]++;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 3 && args[0].equals("build")) {
+            int order = 4, bits = 24;
+            for (int i = 3; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--order": order = Integer.parseInt(args[++i]); break;
+                    case "--bits": bits = Integer.parseInt(args[++i]); break;
+                    default:
+                        System.err.println("Unknown option: " + args[i]);
+                        System.exit(2);
+                }
+            }
+            long t0 = System.nanoTime();
+            long n = build(Paths.get(args[1]), Paths.get(args[2]), order, bits);
+            System.err.printf("Trained an order-%d model on %,d passwords in %.1f s (table %.0f%% full)%n",
+                    order, n, (System.nanoTime() - t0) / 1e9, 100 * open(Paths.get(args[2])).fill());
+        } else if (args.length >= 3 && args[0].equals("check")) {
+            MarkovModel model = open(Paths.get(args[1]));
+            for (int i = 2; i < args.length; i++)
+                System.out.printf("%s: %.1f bits, ~10^%.1f guesses%n", args[i], model.bits(args[i]), model.guessesLog10(args[i]));
+        } else {
+            System.err.println("Usage: java MarkovModel build <corpus.txt> <model.bin> [--order 3|4] [--bits n]");
+            System.err.println("       java MarkovModel check <model.bin> <password>...");
+            System.exit(2);
+        }
+    }
+}
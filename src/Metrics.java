@@ -0,0 +1,261 @@
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Process-wide hot-path instrumentation: a latency histogram per stage (scan, lookups, pattern
+ * estimate, score, suggestions, generator, audit, server, export) and a few event counters.
+ *
+ * Off unless {@code -Dpwdchk.metrics=true}. {@link #ENABLED} is a static final read once, so the
+ * JIT folds {@link #start()} / {@link #stop} / {@link #count} to nothing when it is false. When on:
+ * every counter and histogram bucket is a {@link LongAdder} (striped under contention), buckets
+ * are powers of two in nanoseconds, the numbers are published as the platform MBean
+ * {@code pwdchk:type=Metrics}, and {@code -Dpwdchk.metrics.dump=<seconds>} prints a text report
+ * to stderr at that interval.
+ *
+ * <pre>
+ *   long t = Metrics.start();
+ *   ...
+ *   Metrics.stop(Metrics.SCAN, t);
+ * </pre>
+ */
+public final class Metrics {
+
+    public static final boolean ENABLED = Boolean.getBoolean("pwdchk.metrics");
+
+    // Timed stages
+    public static final int SCAN = 0;           // PasswordScorer char-class / repeat / sequence pass
+    public static final int LOOKUP = 1;         // common list, breached dictionary, breach count
+    public static final int ESTIMATE = 2;       // PatternEstimator
+    public static final int SCORE = 3;          // score from features, entropy included
+    public static final int SUGGEST = 4;        // suggestion codes
+    public static final int GENERATE = 5;       // one max-strength password
+    public static final int GENERATE_BLOCK = 6; // one bulk block of passwords
+    public static final int AUDIT_SLICE = 7;    // one BatchAuditor slice
+    public static final int REQUEST = 8;        // one scoring-server request
+    public static final int EXPORT = 9;         // one history export
+    private static final String[] STAGES = {
+            "scan", "lookup", "estimate", "score", "suggest",
+            "generate", "generateBlock", "auditSlice", "request", "export"};
+
+    // Event counters
+    public static final int GENERATED = 0;         // passwords generated
+    public static final int CONSTRAINED_CHARS = 1; // generator positions drawn from a reduced alphabet
+    public static final int REJECTED_DRAWS = 2;    // generator random draws discarded to stay uniform
+    public static final int AUDITED_LINES = 3;
+    public static final int EXPORTED_ROWS = 4;
+    private static final String[] COUNTERS = {
+            "generated", "constrainedChars", "rejectedDraws", "auditedLines", "exportedRows"};
+
+    // Bucket b holds durations in [2^(b-1), 2^b) ns; the last one is open-ended (~9 minutes and up)
+    private static final int BUCKETS = 40;
+
+    private static final LongAdder[][] histograms = ENABLED ? new LongAdder[STAGES.length][BUCKETS] : null;
+    private static final LongAdder[] totalNanos = ENABLED ? new LongAdder[STAGES.length] : null;
+    private static final LongAdder[] counters = ENABLED ? new LongAdder[COUNTERS.length] : null;
+
+    static {
+        if (ENABLED) {
+            for (int s = 0; s < STAGES.length; s++) {
+                for (int b = 0; b < BUCKETS; b++) histograms[s][b] = new LongAdder();
+                totalNanos[s] = new LongAdder();
+            }
+            for (int c = 0; c < COUNTERS.length; c++) counters[c] = new LongAdder();
+            register();
+            scheduleDump(Long.getLong("pwdchk.metrics.dump", 0));
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /** Start timestamp for {@link #stop}, or 0 when disabled. */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /** Records the time since {@code start} under {@code stage}. */
+    public static void stop(int stage, long start) {
+        if (!ENABLED) return;
+        long ns = System.nanoTime() - start;
+        histograms[stage][Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(ns, 0)))].increment();
+        totalNanos[stage].add(ns);
+    }
+
+    /** Adds {@code n} to event counter {@code counter}. */
+    public static void count(int counter, long n) {
+        if (ENABLED) counters[counter].add(n);
+    }
+
+    // --- Reading ---
+
+    /** Number of timings recorded for {@code stage}. */
+    public static long samples(int stage) {
+        if (!ENABLED) return 0;
+        long n = 0;
+        for (LongAdder b : histograms[stage]) n += b.sum();
+        return n;
+    }
+
+    public static long meanNanos(int stage) {
+        long n = samples(stage);
+        return n == 0 ? 0 : totalNanos[stage].sum() / n;
+    }
+
+    /** Upper bound of the bucket holding quantile {@code q} of {@code stage}, in ns (0 if empty). */
+    public static long quantileNanos(int stage, double q) {
+        if (!ENABLED) return 0;
+        long[] b = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) n += b[i] = histograms[stage][i].sum();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(q * n));
+        for (int i = 0; i < BUCKETS; i++) if ((rank -= b[i]) <= 0) return 1L << i;
+        return 1L << (BUCKETS - 1);
+    }
+
+    public static long counter(int counter) {
+        return ENABLED ? counters[counter].sum() : 0;
+    }
+
+    /** Clears every histogram and counter. */
+    public static void reset() {
+        if (!ENABLED) return;
+        for (LongAdder[] h : histograms) for (LongAdder b : h) b.reset();
+        for (LongAdder t : totalNanos) t.reset();
+        for (LongAdder c : counters) c.reset();
+    }
+
+    /** Text report: one line per stage that has samples, then the counters and the result cache. */
+    public static String report() {
+        StringBuilder sb = new StringBuilder("pwdchk metrics\n");
+        if (!ENABLED) return sb.append("  disabled (-Dpwdchk.metrics=true)\n").toString();
+        for (int s = 0; s < STAGES.length; s++) {
+            long n = samples(s);
+            if (n == 0) continue;
+            sb.append(String.format("  %-17s n=%-12d mean=%-10s p50<%-10s p99<%-10s max<%s%n", STAGES[s], n,
+                    duration(meanNanos(s)), duration(quantileNanos(s, 0.5)), duration(quantileNanos(s, 0.99)),
+                    duration(quantileNanos(s, 1.0))));
+        }
+        for (int c = 0; c < COUNTERS.length; c++) sb.append(String.format("  %-17s %d%n", COUNTERS[c], counter(c)));
+        ScoreCache cache = ScoreCache.shared();
+        if (cache != null)
+            sb.append(String.format("  %-17s hits=%d misses=%d evictions=%d%n", "cache",
+                    cache.hits(), cache.misses(), cache.evictions()));
+        return sb.toString();
+    }
+
+    private static String duration(long ns) {
+        if (ns < 10_000) return ns + "ns";
+        if (ns < 10_000_000) return ns / 1000 + "us";
+        return ns / 1_000_000 + "ms";
+    }
+
+    // --- Publishing ---
+
+    private static void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), new ObjectName("pwdchk:type=Metrics"));
+        } catch (JMException e) {
+            System.err.println("Metrics MBean not registered: " + e);
+        }
+    }
+
+    private static void scheduleDump(long seconds) {
+        if (seconds <= 0) return;
+        ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleAtFixedRate(() -> System.err.print(report()), seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Read-only attributes {@code <stage>.count / meanNanos / p50Nanos / p99Nanos / maxNanos}, the
+     * counters, {@code cache.*}, and {@code report}; one operation, {@code reset}.
+     */
+    private static final class Bean implements DynamicMBean {
+        private final Map<String, LongSupplier> longs = new LinkedHashMap<>();
+        private final MBeanInfo info;
+
+        Bean() {
+            for (int s = 0; s < STAGES.length; s++) {
+                int stage = s;
+                longs.put(STAGES[s] + ".count", () -> samples(stage));
+                longs.put(STAGES[s] + ".meanNanos", () -> meanNanos(stage));
+                longs.put(STAGES[s] + ".p50Nanos", () -> quantileNanos(stage, 0.5));
+                longs.put(STAGES[s] + ".p99Nanos", () -> quantileNanos(stage, 0.99));
+                longs.put(STAGES[s] + ".maxNanos", () -> quantileNanos(stage, 1.0));
+            }
+            for (int c = 0; c < COUNTERS.length; c++) {
+                int counter = c;
+                longs.put(COUNTERS[c], () -> counter(counter));
+            }
+            longs.put("cache.hits", () -> ScoreCache.shared() == null ? 0 : ScoreCache.shared().hits());
+            longs.put("cache.misses", () -> ScoreCache.shared() == null ? 0 : ScoreCache.shared().misses());
+            longs.put("cache.evictions", () -> ScoreCache.shared() == null ? 0 : ScoreCache.shared().evictions());
+
+            MBeanAttributeInfo[] attrs = new MBeanAttributeInfo[longs.size() + 1];
+            int i = 0;
+            for (String name : longs.keySet())
+                attrs[i++] = new MBeanAttributeInfo(name, "long", name, true, false, false);
+            attrs[i] = new MBeanAttributeInfo("report", "java.lang.String", "Text report", true, false, false);
+            MBeanOperationInfo[] ops = {new MBeanOperationInfo("reset", "Clear all metrics",
+                    new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION)};
+            info = new MBeanInfo(Metrics.class.getName(), "Password Inspector hot-path metrics",
+                    attrs, null, ops, null);
+        }
+
+        @Override
+        public Object getAttribute(String name) throws AttributeNotFoundException {
+            if ("report".equals(name)) return report();
+            LongSupplier v = longs.get(name);
+            if (v == null) throw new AttributeNotFoundException(name);
+            return v.getAsLong();
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] names) {
+            AttributeList list = new AttributeList();
+            for (String name : names) {
+                try {
+                    list.add(new Attribute(name, getAttribute(name)));
+                } catch (AttributeNotFoundException ignored) {
+                    // JMX convention: unknown names are left out
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String action, Object[] params, String[] signature) throws ReflectionException {
+            if ("reset".equals(action)) {
+                reset();
+                return null;
+            }
+            throw new ReflectionException(new NoSuchMethodException(action));
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            return info;
+        }
+    }
+}
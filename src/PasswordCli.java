@@ -0,0 +1,207 @@
+import java.io.*;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Headless command-line entry point for scripts, cron jobs and git hooks. Unlike {@link MainGUI}
+ * it never loads an AWT or Swing class, so it works on headless hosts and starts in a fraction
+ * of the time; {@code bin/pwdchk} adds a class-data-sharing archive on top.
+ *
+ * <pre>
+ *   pwdchk score [--json] [--min n] [--tenant name|*] [password ...]   (no passwords: stdin lines)
+ *   pwdchk generate [count] [--length n] [--threads n]
+ *   pwdchk audit &lt;file&gt; [BatchAuditor options]
+ *   pwdchk serve [ScoringServer options]
+ * </pre>
+ * {@code score} prints {@code score<TAB>verdict} per password, or one JSON object per line with
+ * {@code --json}, and exits 1 if any password scores below {@code --min}. With {@code --tenant}
+ * it scores under that {@link PolicySet} policy, or every policy for {@code *}, adds whether each
+ * accepts the password, and also exits 1 on a rejection. The result cache and metrics are only
+ * set up by the commands that use them.
+ */
+public final class PasswordCli {
+
+    private static final String USAGE = String.join("\n",
+            "Usage: pwdchk <command> [options]",
+            "  score [--json] [--min n] [--tenant name|*] [password ...]   score arguments, or stdin lines",
+            "        text output: score<TAB>verdict, plus <TAB>accepted|rejected per policy with --tenant",
+            "  generate [count] [--length n] [--threads n]   max-strength passwords, one per line",
+            "  audit <file> [--format csv|json] [--out file] [--threads n] [--reuse]",
+            "  serve [--host addr] [--port n] [--max-in-flight n]");
+
+    private final PasswordScorer scorer = new PasswordScorer();
+    private final ScoreCache.Entry scored = new ScoreCache.Entry();
+    private final PolicySet.Results results = new PolicySet.Results();
+    private final StringBuilder line = new StringBuilder(128);
+    private final boolean json;
+    private final int min;
+    private final PolicySet policies; // null: default policy, no acceptance check
+    private final int tenant;
+    private boolean failed;
+
+    private PasswordCli(boolean json, int min, PolicySet policies, int tenant) {
+        this.json = json;
+        this.min = min;
+        this.policies = policies;
+        this.tenant = tenant;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) usage();
+        String[] rest = Arrays.copyOfRange(args, 1, args.length);
+        switch (args[0]) {
+            case "score": System.exit(score(rest)); break;
+            case "generate": generate(rest); break;
+            case "audit": BatchAuditor.main(rest); break;
+            case "serve": ScoringServer.main(rest); break;
+            case "help":
+            case "--help":
+                System.out.println(USAGE);
+                break;
+            default: usage();
+        }
+    }
+
+    private static void usage() {
+        System.err.println(USAGE);
+        System.exit(2);
+    }
+
+    // Returns the exit status: 0, or 1 if a password scored below --min
+    private static int score(String[] args) throws IOException {
+        boolean json = false;
+        int min = -1;
+        String tenantName = null;
+        int first = args.length;
+        for (int i = 0; i < args.length; i++) {
+            if ("--json".equals(args[i])) json = true;
+            else if ("--min".equals(args[i]) && i + 1 < args.length) min = Integer.parseInt(args[++i]);
+            else if ("--tenant".equals(args[i]) && i + 1 < args.length) tenantName = args[++i];
+            else if ("--".equals(args[i])) {
+                first = i + 1;
+                break;
+            } else if (args[i].startsWith("--")) usage();
+            else {
+                first = i;
+                break;
+            }
+        }
+        PolicySet policies = null;
+        int tenant = PolicySet.DEFAULT;
+        if (tenantName != null) {
+            policies = PolicySet.current();
+            tenant = "*".equals(tenantName) ? PolicySet.ALL : policies.indexOf(tenantName);
+            if (tenant == -1 && !"*".equals(tenantName)) {
+                System.err.println("Unknown tenant: " + tenantName + " (policies: -Dpwdchk.policies=<file>)");
+                return 2;
+            }
+        }
+        PasswordCli cli = new PasswordCli(json, min, policies, tenant);
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8), 1 << 16);
+        if (first < args.length) {
+            // a handful of arguments: not worth setting up the cache
+            for (int i = first; i < args.length; i++) cli.scoreOne(args[i], out, null);
+        } else {
+            // per-tenant results are not cached
+            cli.scoreLines(new InputStreamReader(System.in, StandardCharsets.UTF_8), out,
+                    policies == null ? ScoreCache.shared() : null);
+        }
+        out.flush();
+        return cli.failed ? 1 : 0;
+    }
+
+    // One password per line (\r\n fine); the read buffer and the line are wiped as they are consumed
+    private void scoreLines(Reader in, Writer out, ScoreCache cache) throws IOException {
+        char[] buf = new char[8192];
+        char[] pwd = new char[256];
+        int len = 0;
+        boolean pending = false;
+        try {
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                for (int i = 0; i < n; i++) {
+                    char c = buf[i];
+                    if (c != '\n') {
+                        if (len == pwd.length) {
+                            char[] grown = Arrays.copyOf(pwd, len * 2);
+                            Arrays.fill(pwd, '\0');
+                            pwd = grown;
+                        }
+                        pwd[len++] = c;
+                        pending = true;
+                        continue;
+                    }
+                    scoreLine(pwd, len, out, cache);
+                    Arrays.fill(pwd, 0, len, '\0');
+                    len = 0;
+                    pending = false;
+                }
+                Arrays.fill(buf, 0, n, '\0');
+            }
+            if (pending) scoreLine(pwd, len, out, cache);
+        } finally {
+            Arrays.fill(buf, '\0');
+            Arrays.fill(pwd, '\0');
+        }
+    }
+
+    private void scoreLine(char[] pwd, int len, Writer out, ScoreCache cache) throws IOException {
+        if (len > 0 && pwd[len - 1] == '\r') len--;
+        scoreOne(CharBuffer.wrap(pwd, 0, len), out, cache);
+    }
+
+    private void scoreOne(CharSequence pwd, Writer out, ScoreCache cache) throws IOException {
+        line.setLength(0);
+        if (policies != null) {
+            PasswordScorer.Features f = scorer.scan(pwd);
+            if (json) {
+                if (!policies.appendJson(line, f, tenant, scored, results)) failed = true;
+            } else {
+                int shown = tenant == PolicySet.ALL ? PolicySet.DEFAULT : tenant;
+                scored.score = PasswordScorer.score(f, policies, shown);
+                line.append(scored.score).append('\t').append(PasswordScorer.verdict(policies.verdictOrdinal(shown, scored.score)));
+                if (tenant == PolicySet.ALL) {
+                    policies.evaluate(f, results);
+                    for (int t = 0; t < policies.size(); t++)
+                        accepted(policies.tenant(t) + ':' + results.scores[t], results.accepted[t]);
+                } else {
+                    accepted(policies.tenant(tenant), policies.accepts(tenant, f, scored.score));
+                }
+            }
+        } else {
+            ScoreCache.Entry e = cache != null ? cache.score(scorer, pwd, scored) : ScoreCache.fill(scorer.scan(pwd), scored);
+            if (json) e.appendJson(line);
+            else line.append(e.score).append('\t').append(PasswordScorer.classify(e.score));
+        }
+        if (scored.score < min) failed = true;
+        out.append(line.append('\n'));
+    }
+
+    private void accepted(String label, boolean ok) {
+        line.append('\t').append(label).append(ok ? ":accepted" : ":rejected");
+        if (!ok) failed = true;
+    }
+
+    private static void generate(String[] args) throws IOException, InterruptedException {
+        long count = 1;
+        int length = 26;
+        int threads = 1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--length": length = Integer.parseInt(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                default:
+                    if (i > 0 || args[i].startsWith("--")) usage();
+                    count = Long.parseLong(args[i]);
+            }
+        }
+        if (length < PasswordGenerator.MIN_MAX_STRENGTH_LENGTH) {
+            System.err.println("--length must be at least " + PasswordGenerator.MIN_MAX_STRENGTH_LENGTH);
+            System.exit(2);
+        }
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16);
+        PasswordGenerator.generateBulk(count, length, threads, out);
+        out.flush();
+    }
+}
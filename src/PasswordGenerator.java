@@ -0,0 +1,270 @@
+import java.io.*;
+import java.nio.file.*;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless max-strength password generator, shared by the GUI's Generate button, the bulk
+ * provisioning API and the benchmarks.
+ *
+ * Passwords are built so they score 100 by construction: one char of each class is placed at a
+ * random slot, and every position is drawn uniformly from the chars that cannot complete a
+ * repeat or a case-insensitive +/-1 sequence with the two before it. Nothing is rescored or retried. A generator
+ * is not thread-safe; the bulk API gives each worker its own.
+ */
+public final class PasswordGenerator {
+
+    /**
+     * Shortest length at which the construction reaches 100 (3 x 18 + 4 x 8 + 15 > 100 under the
+     * built-in policy); {@link PolicySet} rejects default policies that score it lower.
+     */
+    public static final int MIN_MAX_STRENGTH_LENGTH = 18;
+
+    private static final char[] LOWERS = "abcdefghijklmnopqrstuvwxyz".toCharArray();
+    private static final char[] UPPERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+    private static final char[] DIGITS = "0123456789".toCharArray();
+    private static final char[] SPECIALS = "!@#$%^&*()-_=+[]{};:,.<>?/".toCharArray();
+    private static final char[] ALL = concat(LOWERS, UPPERS, DIGITS, SPECIALS);
+    private static final char[][] BY_CLASS = {LOWERS, UPPERS, DIGITS, SPECIALS, ALL};
+    private static final char[][] BY_CLASS_LOWER = new char[BY_CLASS.length][];
+    private static final byte ANY = 4;
+
+    static {
+        for (int c = 0; c < BY_CLASS.length; c++) {
+            BY_CLASS_LOWER[c] = new char[BY_CLASS[c].length];
+            for (int k = 0; k < BY_CLASS[c].length; k++) BY_CLASS_LOWER[c][k] = Character.toLowerCase(BY_CLASS[c][k]);
+        }
+    }
+
+    private final Random rnd;
+    private final byte[] entropy = new byte[1024]; // random bytes drawn in bulk, wiped as consumed
+    private int entropyPos = entropy.length;
+    private byte[] slots = new byte[32];
+    private int rejectedDraws; // since the last fill; only kept when metrics are on
+
+    public PasswordGenerator() {
+        this(new SecureRandom());
+    }
+
+    public PasswordGenerator(Random rnd) {
+        this.rnd = rnd;
+    }
+
+    /** Returns a password of {@code length} chars that scores 100. */
+    public String generateMaxStrength(int length) {
+        char[] out = new char[length];
+        fill(out, 0, length);
+        String pwd = new String(out);
+        Arrays.fill(out, '\0');
+        return pwd;
+    }
+
+    /** Writes a max-strength password into {@code out[off, off + length)}; allocation-free once warm. */
+    public void fill(char[] out, int off, int length) {
+        if (length < MIN_MAX_STRENGTH_LENGTH)
+            throw new IllegalArgumentException("Max-strength passwords need at least " + MIN_MAX_STRENGTH_LENGTH + " chars");
+        if (slots.length < length) slots = new byte[length];
+        long started = Metrics.start();
+        int constrained = 0;
+
+        // class layout: one guaranteed slot per class, the rest from the full set, shuffled in place
+        byte[] s = slots;
+        for (int i = 0; i < length; i++) s[i] = i < 4 ? (byte) i : ANY;
+        for (int i = length - 1; i > 0; i--) {
+            int j = nextInt(i + 1);
+            byte t = s[i];
+            s[i] = s[j];
+            s[j] = t;
+        }
+
+        for (int i = 0; i < length; i++) {
+            char[] alphabet = BY_CLASS[s[i]];
+            int p = off + i;
+            int repeat = -1, sequence = -1; // char / lowercase value that would complete a penalised triple
+            if (i >= 2) {
+                char a = out[p - 2], b = out[p - 1];
+                char la = Character.toLowerCase(a), lb = Character.toLowerCase(b);
+                if (a == b) repeat = b;
+                else if (lb == la + 1) sequence = lb + 1;
+                else if (lb == la - 1) sequence = lb - 1;
+            }
+            if (repeat < 0 && sequence < 0) {
+                out[p] = alphabet[nextInt(alphabet.length)];
+                continue;
+            }
+            constrained++;
+            char[] lowered = BY_CLASS_LOWER[s[i]];
+            int allowed = 0;
+            for (int k = 0; k < alphabet.length; k++)
+                if (alphabet[k] != repeat && lowered[k] != sequence) allowed++;
+            int pick = nextInt(allowed);
+            for (int k = 0; k < alphabet.length; k++) {
+                if (alphabet[k] == repeat || lowered[k] == sequence) continue;
+                if (pick-- == 0) {
+                    out[p] = alphabet[k];
+                    break;
+                }
+            }
+        }
+        if (Metrics.ENABLED) {
+            Metrics.stop(Metrics.GENERATE, started);
+            Metrics.count(Metrics.GENERATED, 1);
+            Metrics.count(Metrics.CONSTRAINED_CHARS, constrained);
+            Metrics.count(Metrics.REJECTED_DRAWS, rejectedDraws);
+            rejectedDraws = 0;
+        }
+    }
+
+    // Uniform in [0, bound), same method as Random.nextInt(int), fed from one bulk nextBytes per 256 draws
+    private int nextInt(int bound) {
+        while (true) {
+            if (entropyPos == entropy.length) {
+                rnd.nextBytes(entropy);
+                entropyPos = 0;
+            }
+            int r = ((entropy[entropyPos] & 0xff) << 24 | (entropy[entropyPos + 1] & 0xff) << 16
+                    | (entropy[entropyPos + 2] & 0xff) << 8 | (entropy[entropyPos + 3] & 0xff)) >>> 1;
+            Arrays.fill(entropy, entropyPos, entropyPos + 4, (byte) 0);
+            entropyPos += 4;
+            int v = r % bound;
+            if (r - v + (bound - 1) >= 0) return v;
+            if (Metrics.ENABLED) rejectedDraws++;
+        }
+    }
+
+    private static char[] concat(char[]... parts) {
+        StringBuilder sb = new StringBuilder();
+        for (char[] p : parts) sb.append(p);
+        return sb.toString().toCharArray();
+    }
+
+    // --- Bulk provisioning ---
+
+    private static final int BLOCK_PASSWORDS = 4096;
+
+    /**
+     * Generates {@code count} max-strength passwords on {@code threads} workers, each with its own
+     * {@link SecureRandom}, and streams them to {@code out} one per line. Blocks are recycled through
+     * a small bounded pool and wiped after writing, so memory stays flat for any count.
+     */
+    public static void generateBulk(long count, int length, int threads, OutputStream out)
+            throws IOException, InterruptedException {
+        if (length < MIN_MAX_STRENGTH_LENGTH)
+            throw new IllegalArgumentException("Max-strength passwords need at least " + MIN_MAX_STRENGTH_LENGTH + " chars");
+        threads = Math.max(1, threads);
+        long blocks = (count + BLOCK_PASSWORDS - 1) / BLOCK_PASSWORDS;
+        int blockBytes = BLOCK_PASSWORDS * (length + 1);
+        int poolSize = threads * 2;
+        BlockingQueue<byte[]> free = new ArrayBlockingQueue<>(poolSize);
+        BlockingQueue<Block> full = new ArrayBlockingQueue<>(poolSize);
+        for (int i = 0; i < poolSize; i++) free.add(new byte[blockBytes]);
+        AtomicLong nextBlock = new AtomicLong();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "generator-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        List<Future<?>> workers = new ArrayList<>();
+        for (int w = 0; w < threads; w++) {
+            workers.add(pool.submit(() -> {
+                PasswordGenerator gen = new PasswordGenerator(newWorkerRandom());
+                char[] pwd = new char[length];
+                long b;
+                while ((b = nextBlock.getAndIncrement()) < blocks) {
+                    int n = (int) Math.min(BLOCK_PASSWORDS, count - b * BLOCK_PASSWORDS);
+                    byte[] buf = free.take();
+                    long t = Metrics.start();
+                    int pos = 0;
+                    for (int i = 0; i < n; i++) {
+                        gen.fill(pwd, 0, length);
+                        for (int k = 0; k < length; k++) buf[pos++] = (byte) pwd[k];
+                        buf[pos++] = '\n';
+                    }
+                    Metrics.stop(Metrics.GENERATE_BLOCK, t);
+                    full.put(new Block(buf, pos));
+                }
+                Arrays.fill(pwd, '\0');
+                return null;
+            }));
+        }
+
+        try {
+            for (long written = 0; written < blocks; ) {
+                Block block = full.poll(100, TimeUnit.MILLISECONDS);
+                if (block == null) {
+                    for (Future<?> f : workers) if (f.isDone()) rethrow(f);
+                    continue;
+                }
+                out.write(block.bytes, 0, block.length);
+                Arrays.fill(block.bytes, 0, block.length, (byte) 0);
+                free.put(block.bytes);
+                written++;
+            }
+            out.flush();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // The default NativePRNG shares one locked source across instances; DRBG state is per instance
+    private static SecureRandom newWorkerRandom() {
+        try {
+            return SecureRandom.getInstance("DRBG");
+        } catch (java.security.NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+
+    private static final class Block {
+        final byte[] bytes;
+        final int length;
+
+        Block(byte[] bytes, int length) {
+            this.bytes = bytes;
+            this.length = length;
+        }
+    }
+
+    private static void rethrow(Future<?> f) throws IOException, InterruptedException {
+        try {
+            f.get();
+        } catch (ExecutionException e) {
+            throw new IOException("Generator worker failed", e.getCause());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: java PasswordGenerator <count> [--length n] [--threads n] [--out file]");
+            System.exit(2);
+        }
+        long count = Long.parseLong(args[0]);
+        int length = 26;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path outPath = null;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--length": length = Integer.parseInt(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--out": outPath = Paths.get(args[++i]); break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        long t0 = System.nanoTime();
+        try (OutputStream out = outPath == null
+                ? new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16)
+                : Files.newOutputStream(outPath)) {
+            generateBulk(count, length, threads, out);
+        }
+        double secs = (System.nanoTime() - t0) / 1e9;
+        System.err.printf("Generated %,d passwords in %.2f s (%,.0f/s)%n", count, secs, secs > 0 ? count / secs : 0.0);
+    }
+}
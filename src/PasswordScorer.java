@@ -0,0 +1,317 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Headless scoring engine used by {@link MainGUI}.
+ *
+ * A password is scanned once into a reusable {@link Features} record; score, entropy and
+ * suggestions are all derived from that record, so scoring allocates nothing. Passwords are read
+ * as {@link CharSequence}s and never turned into Strings: pass a {@code CharBuffer.wrap} view over a
+ * {@code char[]} and wipe the array afterwards.
+ * Instances are not thread-safe — give each thread its own scorer.
+ *
+ * Besides the built-in list, the common-password check consults the memory-mapped
+ * {@link BreachedDictionary} configured with {@code -Dpwdchk.dictionary=<index>}, if any, and
+ * breach counts come from the offline {@link PwnedPasswordIndex} set by {@code -Dpwdchk.pwned}.
+ * The {@link PatternEstimator} guess count caps the score, so a password built from a word, a
+ * keyboard walk or a date cannot rate higher than its guessability allows. With a
+ * {@link MarkovModel} set by {@code -Dpwdchk.markov}, its cost in bits replaces the
+ * length × log2(character space) entropy as the input to the entropy bonus and penalty. Weights,
+ * penalties and verdict bands come from the {@code default} tenant of the live {@link PolicySet}.
+ */
+public final class PasswordScorer {
+
+    // Suggestion codes (bit flags), in the order they are listed to the user
+    public static final int SUGGEST_COMMON = 1;
+    public static final int SUGGEST_BREACHED = 1 << 1;
+    public static final int SUGGEST_LENGTH = 1 << 2;
+    public static final int SUGGEST_UPPER = 1 << 3;
+    public static final int SUGGEST_LOWER = 1 << 4;
+    public static final int SUGGEST_DIGIT = 1 << 5;
+    public static final int SUGGEST_SYMBOL = 1 << 6;
+    public static final int SUGGEST_REPEAT = 1 << 7;
+    public static final int SUGGEST_SEQUENCE = 1 << 8;
+    public static final int SUGGEST_DICTIONARY = 1 << 9;
+    public static final int SUGGEST_KEYBOARD = 1 << 10;
+    public static final int SUGGEST_DATE = 1 << 11;
+    public static final int SUGGEST_REPEATED_BLOCK = 1 << 12;
+    public static final int SUGGEST_MAXED = 1 << 13;
+    public static final int SUGGEST_LOOKS_GOOD = 1 << 14;
+    public static final int SUGGEST_REUSED = 1 << 15; // set by callers running a ReuseDetector
+
+    private static final String[] SUGGESTION_TEXT = {
+            "Common password — change immediately.",
+            "Found in known data breaches — never use it.",
+            "Increase length to 12+ characters.",
+            "Add uppercase letters.",
+            "Add lowercase letters.",
+            "Add digits.",
+            "Add symbols.",
+            "Avoid repeated characters.",
+            "Avoid simple sequences.",
+            "Avoid dictionary words and names, even with l33t substitutions (p@ssw0rd).",
+            "Avoid keyboard walks like qwerty or zxcvbn.",
+            "Avoid dates and years.",
+            "Avoid repeated blocks like abcabc.",
+            "This password is maxed out. Military-grade.",
+            "Looks good. Consider lengthening further for extra safety.",
+            "Too close to a password used before — don't recycle variations."
+    };
+
+    private static final String[] VERDICTS = {"Very Weak", "Weak", "Moderate", "Strong", "Very Strong"};
+
+    // Already lowercase; matched case-insensitively without copying the input
+    private static final char[][] COMMON_PASSWORDS = {
+            "password".toCharArray(), "123456".toCharArray(), "123456789".toCharArray(),
+            "qwerty".toCharArray(), "abc123".toCharArray(), "111111".toCharArray(),
+            "password1".toCharArray(), "12345678".toCharArray(), "iloveyou".toCharArray(),
+            "admin".toCharArray(), "welcome".toCharArray(), "letmein".toCharArray()
+    };
+
+    /** Everything the scoring rules look at, filled by a single pass over the password. */
+    public static final class Features {
+        public int length;
+        public boolean lower, upper, digit, special;
+        public boolean repeat;     // same character three or more times in a row
+        public boolean sequence;   // ascending/descending run of three (case-insensitive)
+        public boolean common;     // exact (case-insensitive) common or breached password
+        public long breaches;      // occurrences in the Pwned Passwords corpus (0 if absent or not configured)
+        public int lineBreaks;     // regex line terminators seen; they narrow the entropy estimate
+        public double guessesLog10; // PatternEstimator's minimum guess count, log10
+        public int patterns;       // PatternEstimator kinds (1 << kind) on the cheapest path
+        public double markovBits = -1; // MarkovModel cost, -1 without a model
+
+        void reset() {
+            length = 0;
+            lower = upper = digit = special = false;
+            repeat = sequence = common = false;
+            breaches = 0;
+            lineBreaks = 0;
+            guessesLog10 = 0;
+            patterns = 0;
+            markovBits = -1;
+        }
+
+        public int diversity() {
+            return (lower ? 1 : 0) + (upper ? 1 : 0) + (digit ? 1 : 0) + (special ? 1 : 0);
+        }
+    }
+
+    private final Features features = new Features();
+    private final PatternEstimator estimator = new PatternEstimator();
+    private final BreachedDictionary dictionary;
+    private final PwnedPasswordIndex pwned;
+    private final MarkovModel markov;
+
+    public PasswordScorer() {
+        this(BreachedDictionary.shared(), PwnedPasswordIndex.shared(), MarkovModel.shared());
+    }
+
+    /**
+     * @param dictionary breached-password index to consult, or null for the built-in list only
+     * @param pwned      offline breach-count index, or null to skip breach counts
+     */
+    public PasswordScorer(BreachedDictionary dictionary, PwnedPasswordIndex pwned) {
+        this(dictionary, pwned, null);
+    }
+
+    /** @param markov character model for the entropy input, or null for the character-space estimate */
+    public PasswordScorer(BreachedDictionary dictionary, PwnedPasswordIndex pwned, MarkovModel markov) {
+        this.dictionary = dictionary;
+        this.pwned = pwned;
+        this.markov = markov;
+    }
+
+    /** Scans {@code pwd} into this scorer's feature record and returns it (reused on every call). */
+    public Features scan(CharSequence pwd) {
+        long t = Metrics.start();
+        Features f = features;
+        f.reset();
+        int n = pwd.length();
+        f.length = n;
+
+        int run = 0;
+        char prev = 0;
+        char p1 = 0, p2 = 0; // previous two chars, lowercased
+        for (int i = 0; i < n; i++) {
+            char c = pwd.charAt(i);
+            if (c >= 'a' && c <= 'z') f.lower = true;
+            else if (c >= 'A' && c <= 'Z') f.upper = true;
+            else if (c >= '0' && c <= '9') f.digit = true;
+            else {
+                f.special = true;
+                if (isLineTerminator(c)) f.lineBreaks++;
+            }
+
+            // (.)\1{2,}: three equal chars, or three equal surrogate pairs
+            if (c == prev) run++;
+            else run = 1;
+            prev = c;
+            if (run >= 3 && !isLineTerminator(c)) f.repeat = true;
+            if (i >= 5 && Character.isLowSurrogate(c) && Character.isHighSurrogate(pwd.charAt(i - 1))
+                    && c == pwd.charAt(i - 2) && c == pwd.charAt(i - 4)
+                    && pwd.charAt(i - 1) == pwd.charAt(i - 3) && pwd.charAt(i - 1) == pwd.charAt(i - 5)) f.repeat = true;
+
+            char lc = Character.toLowerCase(c);
+            if (i >= 2 && ((p2 == p1 + 1 && lc == p2 + 1) || (p2 == p1 - 1 && lc == p2 - 1))) f.sequence = true;
+            p1 = p2;
+            p2 = lc;
+        }
+        Metrics.stop(Metrics.SCAN, t);
+        lookup(pwd, f);
+        return f;
+    }
+
+    /**
+     * As {@link #scan}, with the character classes, repeat / sequence flags and line breaks taken
+     * from a {@link ClassScanner} result for {@code pwd} instead of a scalar pass; {@code classes}
+     * must not be {@link ClassScanner#NON_ASCII}.
+     */
+    public Features scan(CharSequence pwd, int classes) {
+        Features f = features;
+        f.reset();
+        f.length = pwd.length();
+        f.lower = (classes & ClassScanner.LOWER) != 0;
+        f.upper = (classes & ClassScanner.UPPER) != 0;
+        f.digit = (classes & ClassScanner.DIGIT) != 0;
+        f.special = (classes & ClassScanner.SPECIAL) != 0;
+        f.repeat = (classes & ClassScanner.REPEAT) != 0;
+        f.sequence = (classes & ClassScanner.SEQUENCE) != 0;
+        f.lineBreaks = classes >>> ClassScanner.LINE_BREAK_SHIFT;
+        lookup(pwd, f);
+        return f;
+    }
+
+    /**
+     * Whole-password checks (common list, breached dictionary, breach count, pattern guesses,
+     * Markov cost) that cannot be maintained incrementally; fills {@code common}, {@code breaches},
+     * {@code guessesLog10}, {@code patterns} and {@code markovBits} of {@code f}.
+     */
+    public void lookup(CharSequence pwd, Features f) {
+        long t = Metrics.start();
+        f.common = isCommon(pwd) || (dictionary != null && dictionary.contains(pwd));
+        f.breaches = pwned != null && pwd.length() > 0 ? pwned.breachCount(pwd) : 0;
+        Metrics.stop(Metrics.LOOKUP, t);
+        t = Metrics.start();
+        f.guessesLog10 = estimator.estimate(pwd);
+        f.patterns = estimator.patterns();
+        f.markovBits = markov != null ? markov.bits(pwd) : -1;
+        Metrics.stop(Metrics.ESTIMATE, t);
+    }
+
+    /** Convenience: scan and score in one call. */
+    public int score(CharSequence pwd) {
+        return score(scan(pwd));
+    }
+
+    /** Score under the live default policy. */
+    public static int score(Features f) {
+        return score(f, PolicySet.current(), PolicySet.DEFAULT);
+    }
+
+    public static int score(Features f, PolicySet policies, int tenant) {
+        long t = Metrics.start();
+        int score = policies.score(tenant, f, strengthBits(f));
+        Metrics.stop(Metrics.SCORE, t);
+        return score;
+    }
+
+    /** Input to the policies' entropy bonus and penalty: the Markov cost if there is one, else {@link #entropy}. */
+    public static double strengthBits(Features f) {
+        return f.markovBits >= 0 ? f.markovBits : entropy(f);
+    }
+
+    public static double entropy(Features f) {
+        // Mirrors the original ".*[a-z].*"-style checks: "." stops at line terminators, so a class
+        // only counts when it can be matched with no other line break in the string.
+        boolean plain = f.lineBreaks == 0;
+        int charSpace = 0;
+        if (plain && f.lower) charSpace += 26;
+        if (plain && f.upper) charSpace += 26;
+        if (plain && f.digit) charSpace += 10;
+        if (plain ? f.special : f.lineBreaks == 1) charSpace += 32;
+        if (charSpace == 0) return 0.0;
+        return f.length * (Math.log(charSpace) / Math.log(2));
+    }
+
+    /** Suggestion codes ({@code SUGGEST_*} bits) for a scanned password and its score. */
+    public static int suggestionCodes(Features f, int score) {
+        long t = Metrics.start();
+        int codes = 0;
+        if (f.common) codes |= SUGGEST_COMMON;
+        if (f.breaches > 0) codes |= SUGGEST_BREACHED;
+        if (f.length < 12) codes |= SUGGEST_LENGTH;
+        if (!f.upper) codes |= SUGGEST_UPPER;
+        if (!f.lower) codes |= SUGGEST_LOWER;
+        if (!f.digit) codes |= SUGGEST_DIGIT;
+        if (!f.special) codes |= SUGGEST_SYMBOL;
+        if (f.repeat) codes |= SUGGEST_REPEAT;
+        if (f.sequence) codes |= SUGGEST_SEQUENCE;
+        if (f.guessesLog10 < 10) {
+            if ((f.patterns & (1 << PatternEstimator.DICTIONARY | 1 << PatternEstimator.L33T)) != 0) codes |= SUGGEST_DICTIONARY;
+            if ((f.patterns & 1 << PatternEstimator.KEYBOARD) != 0) codes |= SUGGEST_KEYBOARD;
+            if ((f.patterns & 1 << PatternEstimator.DATE) != 0) codes |= SUGGEST_DATE;
+            if ((f.patterns & 1 << PatternEstimator.REPEAT) != 0) codes |= SUGGEST_REPEATED_BLOCK;
+        }
+        if (score >= 100) codes |= SUGGEST_MAXED;
+        if (codes == 0) codes |= SUGGEST_LOOKS_GOOD;
+        Metrics.stop(Metrics.SUGGEST, t);
+        return codes;
+    }
+
+    /** {@code codes} for a password a {@link ReuseDetector} matched: reuse replaces "looks good". */
+    public static int withReuse(int codes) {
+        return codes & ~SUGGEST_LOOKS_GOOD | SUGGEST_REUSED;
+    }
+
+    public static List<String> suggestionList(int codes) {
+        List<String> s = new ArrayList<>();
+        for (int bit = 0; bit < SUGGESTION_TEXT.length; bit++)
+            if ((codes & (1 << bit)) != 0) s.add(SUGGESTION_TEXT[bit]);
+        return s;
+    }
+
+    /** Text of a single {@code SUGGEST_*} code. */
+    public static String suggestionText(int code) {
+        return SUGGESTION_TEXT[Integer.numberOfTrailingZeros(code)];
+    }
+
+    /** Numbered, one-per-line rendering used by the suggestions box. */
+    public static String formatSuggestions(int codes) {
+        StringBuilder sb = new StringBuilder();
+        int n = 0;
+        for (int bit = 0; bit < SUGGESTION_TEXT.length; bit++)
+            if ((codes & (1 << bit)) != 0) sb.append(++n).append(". ").append(SUGGESTION_TEXT[bit]).append("\n");
+        return sb.toString();
+    }
+
+    public static String classify(int score) {
+        return VERDICTS[verdictOrdinal(score)];
+    }
+
+    /** Index of the verdict for {@code score} in {@link #verdict(int)}, weakest first (default policy bands). */
+    public static int verdictOrdinal(int score) {
+        return PolicySet.current().verdictOrdinal(PolicySet.DEFAULT, score);
+    }
+
+    public static String verdict(int ordinal) {
+        return VERDICTS[ordinal];
+    }
+
+    private static boolean isCommon(CharSequence pwd) {
+        int n = pwd.length();
+        outer:
+        for (char[] word : COMMON_PASSWORDS) {
+            if (word.length != n) continue;
+            for (int i = 0; i < n; i++)
+                if (Character.toLowerCase(pwd.charAt(i)) != word[i]) continue outer;
+            return true;
+        }
+        return false;
+    }
+
+    // Same set as java.util.regex's "." exclusions
+    static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
@@ -0,0 +1,521 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * zxcvbn-style guess estimator: finds dictionary words (plain and l33t), qwerty keyboard walks,
+ * dates and years, repeated blocks and character sequences, then picks the cheapest way to
+ * cover the password with those matches and brute-force characters.
+ *
+ * All tables are compiled once per JVM: the dictionary is an Aho-Corasick automaton flattened
+ * into int arrays, and the keyboard layout is a pair of primitive coordinate arrays. Matching is
+ * a handful of linear passes over the password; the scratch arrays live in the estimator and
+ * are only grown, so a warm estimator allocates nothing. Instances are not thread-safe.
+ *
+ * Extra words can be appended to the built-in list with {@code -Dpwdchk.words=<file>} (one per
+ * line, most common first).
+ */
+public final class PatternEstimator {
+
+    // Match kinds, also reported as bit flags (1 << kind) of the patterns on the cheapest path
+    public static final int DICTIONARY = 0;
+    public static final int L33T = 1;
+    public static final int KEYBOARD = 2;
+    public static final int DATE = 3;
+    public static final int REPEAT = 4;
+    public static final int SEQUENCE = 5;
+
+    private static final double BRUTEFORCE_PER_CHAR = 1.0;        // log10(10), as in zxcvbn
+    private static final double MIN_MULTI_CHAR_GUESSES = Math.log10(50);
+    // UTC year: LocalDate.now() would load the time-zone database, a large share of CLI startup
+    private static final int REFERENCE_YEAR = LocalDate.ofEpochDay(System.currentTimeMillis() / 86_400_000L).getYear();
+    private static final int MIN_YEAR_SPACE = 20;
+    private static final int MAX_REPEAT_BLOCK = 8;
+    private static final int MAX_WALK = 64;
+
+    // Most common first: leaked-password favourites, then names and everyday words
+    private static final String BUILT_IN_WORDS =
+            "password 123456 12345678 qwerty abc123 monkey letmein dragon 111111 baseball iloveyou "
+            + "trustno1 sunshine master welcome shadow ashley football jesus michael ninja mustang "
+            + "password1 admin login princess starwars whatever freedom hello charlie donald qazwsx "
+            + "superman batman access flower hottie loveme passw0rd secret summer winter spring autumn "
+            + "changeme default root test guest pass computer internet killer soccer hockey george "
+            + "jordan harley ranger hunter buster tigger robert thomas daniel andrew joshua matthew "
+            + "jennifer jessica maggie pepper ginger cookie chocolate orange purple yellow silver golden "
+            + "diamond lovely angel baby family friend happy money world house life love time apple "
+            + "banana cheese coffee water fire earth star moon blue red green black white dog cat lion "
+            + "tiger bear eagle wolf horse magic power super king queen prince god heaven music rock "
+            + "metal game player pokemon mario school college private company office user system "
+            + "server account bank google facebook samsung microsoft london paris berlin america "
+            + "correct battery staple horse secure strong letme open sesame dolphin butterfly "
+            + "pussycat cowboy hammer thunder rainbow snoopy merlin matrix phoenix zxcvbn asdfgh "
+            + "welcome1 admin123 root123 test123 iloveu lovers forever sweet honey sugar cherry "
+            + "peanut shorty nicole daniela andrea maria sophie olivia emma james john david "
+            + "richard joseph charles william chris jason kevin brian steven edward ronald anthony";
+
+    // --- Compiled dictionary (Aho-Corasick DFA over a-z0-9) ---
+
+    private static final int SYMBOLS = 36;
+    private static final int[] DELTA;    // [state * SYMBOLS + symbol] -> state
+    private static final int[] RANK;     // word rank ending exactly at state (0 = none)
+    private static final int[] DEPTH;    // length of the word ending at state
+    private static final int[] OUT_LINK; // next state on the suffix chain that ends a word (-1 = none)
+
+    // l33t substitutions folded onto the letter they stand for (ASCII only)
+    private static final char[] L33T_TABLE = new char[128];
+
+    // --- Keyboard layout (qwerty), in quarter-key units ---
+
+    private static final byte[] KEY_ROW = new byte[128];   // -1 = not on the layout
+    private static final short[] KEY_X = new short[128];
+    private static final boolean[] KEY_SHIFTED = new boolean[128];
+    private static final double KEY_STARTS = 94;
+    private static final double KEY_DEGREE = 4.595744680851064;
+
+    static {
+        String[][] leet = {{"a", "@4"}, {"b", "8"}, {"e", "3"}, {"g", "69"}, {"i", "1!"}, {"l", "|"},
+                {"o", "0"}, {"s", "$5"}, {"t", "7+"}, {"z", "2"}};
+        for (String[] sub : leet)
+            for (char c : sub[1].toCharArray()) L33T_TABLE[c] = sub[0].charAt(0);
+
+        java.util.Arrays.fill(KEY_ROW, (byte) -1);
+        String[] plain = {"`1234567890-=", "qwertyuiop[]\\", "asdfghjkl;'", "zxcvbnm,./"};
+        String[] shifted = {"~!@#$%^&*()_+", "QWERTYUIOP{}|", "ASDFGHJKL:\"", "ZXCVBNM<>?"};
+        int[] rowOffset = {0, 6, 7, 9};
+        for (int r = 0; r < plain.length; r++) {
+            for (int c = 0; c < plain[r].length(); c++) {
+                for (int s = 0; s < 2; s++) {
+                    char k = (s == 0 ? plain : shifted)[r].charAt(c);
+                    KEY_ROW[k] = (byte) r;
+                    KEY_X[k] = (short) (rowOffset[r] + c * 4);
+                    KEY_SHIFTED[k] = s == 1;
+                }
+            }
+        }
+
+        Map<String, Integer> ranked = new LinkedHashMap<>();
+        for (int i = 0, sp; i < BUILT_IN_WORDS.length(); i = sp + 1) { // split(" ") without regex setup
+            sp = BUILT_IN_WORDS.indexOf(' ', i);
+            if (sp < 0) sp = BUILT_IN_WORDS.length();
+            addWord(ranked, BUILT_IN_WORDS.substring(i, sp));
+        }
+        String extra = System.getProperty("pwdchk.words");
+        if (extra != null && !extra.isEmpty()) {
+            // Lenient decoding: a line that is not UTF-8 gets U+FFFD and is skipped, not the whole list
+            try (BufferedReader r = new BufferedReader(new InputStreamReader(Files.newInputStream(Paths.get(extra)),
+                    StandardCharsets.UTF_8.newDecoder()
+                            .onMalformedInput(CodingErrorAction.REPLACE)
+                            .onUnmappableCharacter(CodingErrorAction.REPLACE)))) {
+                String line;
+                while ((line = r.readLine()) != null) addWord(ranked, line.trim());
+            } catch (IOException e) {
+                System.err.println("Word list unavailable (" + extra + "): " + e.getMessage());
+            }
+        }
+
+        // trie
+        int capacity = 1;
+        for (String w : ranked.keySet()) capacity += w.length();
+        int[] delta = new int[capacity * SYMBOLS];
+        java.util.Arrays.fill(delta, -1);
+        int[] rank = new int[capacity], depth = new int[capacity];
+        int states = 1;
+        for (Map.Entry<String, Integer> e : ranked.entrySet()) {
+            int s = 0;
+            String w = e.getKey();
+            for (int i = 0; i < w.length(); i++) {
+                int sym = symbol(w.charAt(i));
+                if (delta[s * SYMBOLS + sym] < 0) {
+                    delta[s * SYMBOLS + sym] = states;
+                    depth[states] = depth[s] + 1;
+                    states++;
+                }
+                s = delta[s * SYMBOLS + sym];
+            }
+            if (rank[s] == 0) rank[s] = e.getValue();
+        }
+
+        // failure links (BFS), completing the trie into a DFA
+        int[] fail = new int[states], outLink = new int[states], queue = new int[states];
+        java.util.Arrays.fill(outLink, -1);
+        int head = 0, tail = 0;
+        for (int sym = 0; sym < SYMBOLS; sym++) {
+            int t = delta[sym];
+            if (t < 0) delta[sym] = 0;
+            else {
+                fail[t] = 0;
+                queue[tail++] = t;
+            }
+        }
+        while (head < tail) {
+            int s = queue[head++];
+            int f = fail[s];
+            outLink[s] = rank[f] != 0 ? f : outLink[f];
+            for (int sym = 0; sym < SYMBOLS; sym++) {
+                int t = delta[s * SYMBOLS + sym];
+                if (t < 0) delta[s * SYMBOLS + sym] = delta[f * SYMBOLS + sym];
+                else {
+                    fail[t] = delta[f * SYMBOLS + sym];
+                    queue[tail++] = t;
+                }
+            }
+        }
+        DELTA = java.util.Arrays.copyOf(delta, states * SYMBOLS);
+        RANK = java.util.Arrays.copyOf(rank, states);
+        DEPTH = java.util.Arrays.copyOf(depth, states);
+        OUT_LINK = outLink;
+    }
+
+    private static void addWord(Map<String, Integer> ranked, String w) {
+        w = w.toLowerCase(java.util.Locale.ROOT);
+        if (w.length() < 3) return;
+        for (int i = 0; i < w.length(); i++) if (symbol(w.charAt(i)) < 0) return;
+        ranked.putIfAbsent(w, ranked.size() + 1);
+    }
+
+    private static int symbol(char c) {
+        if (c >= 'a' && c <= 'z') return c - 'a';
+        if (c >= 'A' && c <= 'Z') return c - 'A';
+        if (c >= '0' && c <= '9') return 26 + (c - '0');
+        return -1;
+    }
+
+    // --- Per-instance scratch ---
+
+    private int capacity;
+    private char[] chars;        // copy of the password being estimated, wiped afterwards
+    private int[] matchHead;     // first match ending at position (index into match arrays), -1 = none
+    private int[] subsPrefix;    // l33t substitutions among chars [0, i)
+    private double[] best;       // cheapest log10 guesses for the prefix of length i
+    private int[] bestMatch;     // match used to reach i (-1 = brute-force char)
+    private int matchCount;
+    private int[] matchStart = new int[64], matchNext = new int[64], matchKind = new int[64];
+    private double[] matchCost = new double[64];
+
+    private double guessesLog10;
+    private int patterns;
+
+    /** log10 of the estimated guesses for the last password passed to {@link #estimate}. */
+    public double guessesLog10() {
+        return guessesLog10;
+    }
+
+    /** Bit flags ({@code 1 << kind}) of the pattern kinds on the cheapest path of the last estimate. */
+    public int patterns() {
+        return patterns;
+    }
+
+    /** Estimates guesses for {@code pwd}; returns log10(guesses). */
+    public double estimate(CharSequence pwd) {
+        int n = pwd.length();
+        ensureCapacity(n);
+        matchCount = 0;
+        java.util.Arrays.fill(matchHead, 0, n + 1, -1);
+
+        char[] s = chars;
+        for (int i = 0; i < n; i++) s[i] = pwd.charAt(i);
+        try {
+            dictionaryMatches(s, n, false);
+            dictionaryMatches(s, n, true);
+            keyboardMatches(s, n);
+            dateMatches(s, n);
+            repeatMatches(s, n);
+            sequenceMatches(s, n);
+        } finally {
+            java.util.Arrays.fill(s, 0, n, '\0');
+        }
+
+        best[0] = 0;
+        for (int end = 1; end <= n; end++) {
+            best[end] = best[end - 1] + BRUTEFORCE_PER_CHAR;
+            bestMatch[end] = -1;
+            for (int m = matchHead[end]; m >= 0; m = matchNext[m]) {
+                double cost = best[matchStart[m]] + matchCost[m];
+                if (cost < best[end]) {
+                    best[end] = cost;
+                    bestMatch[end] = m;
+                }
+            }
+        }
+        int flags = 0;
+        for (int end = n; end > 0; ) {
+            int m = bestMatch[end];
+            if (m < 0) end--;
+            else {
+                flags |= 1 << matchKind[m];
+                end = matchStart[m];
+            }
+        }
+        guessesLog10 = best[n];
+        patterns = flags;
+        return guessesLog10;
+    }
+
+    private void addMatch(int start, int end, int kind, double log10Guesses) {
+        if (matchCount == matchStart.length) {
+            int grown = matchCount * 2;
+            matchStart = java.util.Arrays.copyOf(matchStart, grown);
+            matchNext = java.util.Arrays.copyOf(matchNext, grown);
+            matchKind = java.util.Arrays.copyOf(matchKind, grown);
+            matchCost = java.util.Arrays.copyOf(matchCost, grown);
+        }
+        int m = matchCount++;
+        matchStart[m] = start;
+        matchKind[m] = kind;
+        matchCost[m] = Math.max(log10Guesses, end - start > 1 ? MIN_MULTI_CHAR_GUESSES : BRUTEFORCE_PER_CHAR);
+        matchNext[m] = matchHead[end];
+        matchHead[end] = m;
+    }
+
+    // Aho-Corasick pass over the lowercased password, or over its l33t-folded form
+    private void dictionaryMatches(char[] pwd, int n, boolean leet) {
+        if (leet) {
+            subsPrefix[0] = 0;
+            for (int i = 0; i < n; i++) {
+                char c = pwd[i];
+                subsPrefix[i + 1] = subsPrefix[i] + (c < 128 && L33T_TABLE[c] != 0 ? 1 : 0);
+            }
+            if (subsPrefix[n] == 0) return; // nothing to fold; the plain pass saw it all
+        }
+        int state = 0;
+        for (int i = 0; i < n; i++) {
+            char c = pwd[i];
+            int sym = leet && c < 128 && L33T_TABLE[c] != 0 ? L33T_TABLE[c] - 'a' : symbol(c);
+            if (sym < 0) {
+                state = 0;
+                continue;
+            }
+            state = DELTA[state * SYMBOLS + sym];
+            for (int s = RANK[state] != 0 ? state : OUT_LINK[state]; s >= 0; s = OUT_LINK[s]) {
+                int end = i + 1, start = end - DEPTH[s];
+                int subs = leet ? subsPrefix[end] - subsPrefix[start] : 0;
+                if (leet && subs == 0) continue;
+                double g = Math.log10(RANK[s]) + Math.log10(uppercaseVariations(pwd, start, end));
+                if (leet) g += subs * Math.log10(2);
+                addMatch(start, end, leet ? L33T : DICTIONARY, g);
+            }
+        }
+    }
+
+    private static double uppercaseVariations(char[] pwd, int start, int end) {
+        int upper = 0, lower = 0;
+        for (int i = start; i < end; i++) {
+            char c = pwd[i];
+            if (c >= 'A' && c <= 'Z') upper++;
+            else if (c >= 'a' && c <= 'z') lower++;
+        }
+        if (upper == 0) return 1;
+        char first = pwd[start], last = pwd[end - 1];
+        boolean firstOnly = upper == 1 && first >= 'A' && first <= 'Z';
+        boolean lastOnly = upper == 1 && last >= 'A' && last <= 'Z';
+        if (firstOnly || lastOnly || lower == 0) return 2;
+        double v = 0;
+        for (int i = 1; i <= Math.min(upper, lower); i++) v += binomial(upper + lower, i);
+        return Math.max(v, 1);
+    }
+
+    // Maximal runs of adjacent qwerty keys, three or more long
+    private void keyboardMatches(char[] pwd, int n) {
+        int i = 0;
+        while (i < n - 2) {
+            int j = i, turns = 0, lastDir = -1, shifted = 0;
+            char c = pwd[i];
+            if (c < 128 && KEY_ROW[c] >= 0 && KEY_SHIFTED[c]) shifted++;
+            while (j + 1 < n) {
+                char a = pwd[j], b = pwd[j + 1];
+                int dir = direction(a, b);
+                if (dir < 0) break;
+                if (dir != lastDir) {
+                    turns++;
+                    lastDir = dir;
+                }
+                if (KEY_SHIFTED[b]) shifted++;
+                j++;
+            }
+            int len = j - i + 1;
+            if (len >= 3) {
+                addMatch(i, j + 1, KEYBOARD, walkGuesses(Math.min(len, MAX_WALK), turns, shifted, len - shifted));
+                i = j;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    // Direction code (0..8) from key a to an adjacent key b, or -1 if not adjacent
+    private static int direction(char a, char b) {
+        if (a >= 128 || b >= 128 || KEY_ROW[a] < 0 || KEY_ROW[b] < 0) return -1;
+        int dr = KEY_ROW[b] - KEY_ROW[a], dx = KEY_X[b] - KEY_X[a];
+        boolean adjacent = (dr == 0 && (dx == 4 || dx == -4)) || ((dr == 1 || dr == -1) && dx > -4 && dx < 4);
+        if (!adjacent) return -1;
+        return (dr + 1) * 3 + (Integer.signum(dx) + 1);
+    }
+
+    private static double walkGuesses(int len, int turns, int shifted, int unshifted) {
+        double guesses = 0;
+        for (int i = 2; i <= len; i++)
+            for (int j = 1; j <= Math.min(turns, i - 1); j++)
+                guesses += binomial(i - 1, j - 1) * KEY_STARTS * Math.pow(KEY_DEGREE, j);
+        if (shifted > 0) {
+            if (unshifted == 0) guesses *= 2;
+            else {
+                double v = 0;
+                for (int i = 1; i <= Math.min(shifted, unshifted); i++) v += binomial(shifted + unshifted, i);
+                guesses *= v;
+            }
+        }
+        return Math.log10(guesses);
+    }
+
+    // Years (1900-2049) and day/month/year dates, with or without a separator
+    private void dateMatches(char[] pwd, int n) {
+        for (int i = 0; i < n; i++) {
+            if (!isDigit(pwd[i])) continue;
+            int run = 0;
+            while (i + run < n && run < 8 && isDigit(pwd[i + run])) run++;
+
+            if (run >= 4) {
+                int y = digits(pwd, i, 4);
+                if (y >= 1900 && y <= 2049) addMatch(i, i + 4, DATE, Math.log10(yearSpace(y)));
+            }
+            if (run >= 6) {
+                int a = digits(pwd, i, 2), b = digits(pwd, i + 2, 2), c = digits(pwd, i + 4, 2);
+                int y = -1;
+                if (isDayMonth(a, b) || isDayMonth(b, a)) y = twoDigitYear(c);
+                else if (isDayMonth(c, b)) y = twoDigitYear(a);
+                if (y > 0) addMatch(i, i + 6, DATE, Math.log10(365.0 * yearSpace(y)));
+            }
+            if (run >= 8) {
+                int a = digits(pwd, i, 2), b = digits(pwd, i + 2, 2), y4 = digits(pwd, i + 4, 4);
+                int lead = digits(pwd, i, 4), m = digits(pwd, i + 4, 2), d = digits(pwd, i + 6, 2);
+                int y = -1;
+                if ((isDayMonth(a, b) || isDayMonth(b, a)) && y4 >= 1900 && y4 <= 2049) y = y4;
+                else if (lead >= 1900 && lead <= 2049 && isDayMonth(d, m)) y = lead;
+                if (y > 0) addMatch(i, i + 8, DATE, Math.log10(365.0 * yearSpace(y)));
+            }
+            separatedDate(pwd, n, i);
+        }
+    }
+
+    // d/m/y, m/d/y or y/m/d with one repeated separator; starts at a digit
+    private void separatedDate(char[] pwd, int n, int i) {
+        int p = i;
+        int aLen = 0;
+        while (p < n && aLen < 4 && isDigit(pwd[p])) { p++; aLen++; }
+        if (p >= n || !isSeparator(pwd[p])) return;
+        char sep = pwd[p++];
+        int bStart = p, bLen = 0;
+        while (p < n && bLen < 2 && isDigit(pwd[p])) { p++; bLen++; }
+        if (bLen == 0 || p >= n || pwd[p] != sep) return;
+        p++;
+        int cStart = p, cLen = 0;
+        while (p < n && cLen < 4 && isDigit(pwd[p])) { p++; cLen++; }
+        if (cLen == 0) return;
+        int a = digits(pwd, i, aLen), b = digits(pwd, bStart, bLen), c = digits(pwd, cStart, cLen);
+        int y = -1;
+        if (aLen <= 2 && (cLen == 2 || cLen == 4) && (isDayMonth(a, b) || isDayMonth(b, a)))
+            y = cLen == 2 ? twoDigitYear(c) : (c >= 1900 && c <= 2049 ? c : -1);
+        else if (aLen == 4 && a >= 1900 && a <= 2049 && cLen <= 2 && isDayMonth(c, b)) y = a;
+        if (y > 0) addMatch(i, p, DATE, Math.log10(365.0 * yearSpace(y) * 4));
+    }
+
+    private static boolean isDayMonth(int day, int month) {
+        return day >= 1 && day <= 31 && month >= 1 && month <= 12;
+    }
+
+    private static int twoDigitYear(int yy) {
+        return yy > 50 ? 1900 + yy : 2000 + yy;
+    }
+
+    private static int yearSpace(int year) {
+        return Math.max(Math.abs(year - REFERENCE_YEAR), MIN_YEAR_SPACE);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == '/' || c == '-' || c == '.' || c == '_' || c == ' ' || c == '\\';
+    }
+
+    private static int digits(char[] s, int from, int count) {
+        int v = 0;
+        for (int i = from; i < from + count; i++) v = v * 10 + (s[i] - '0');
+        return v;
+    }
+
+    // Blocks of 1..8 chars repeated back to back ("aaaa", "abcabc")
+    private void repeatMatches(char[] pwd, int n) {
+        for (int p = 1; p <= MAX_REPEAT_BLOCK && p * 2 <= n; p++) {
+            int run = 0; // consecutive i with pwd[i] == pwd[i + p]
+            for (int i = 0; i + p <= n; i++) {
+                boolean same = i + p < n && pwd[i] == pwd[i + p];
+                if (same) {
+                    run++;
+                    continue;
+                }
+                if (run >= p) {
+                    int start = i - run, count = (run + p) / p;
+                    addMatch(start, start + count * p, REPEAT, p + Math.log10(count));
+                }
+                run = 0;
+            }
+        }
+    }
+
+    // Runs of three or more with a constant step of 1..5 within one class ("abc", "2468", "zyx")
+    private void sequenceMatches(char[] pwd, int n) {
+        int i = 0;
+        while (i < n - 2) {
+            char a = pwd[i], b = pwd[i + 1];
+            int delta = b - a;
+            int cls = charClass(a);
+            if (cls < 0 || charClass(b) != cls || delta == 0 || Math.abs(delta) > 5) {
+                i++;
+                continue;
+            }
+            int j = i + 1;
+            while (j + 1 < n && pwd[j + 1] - pwd[j] == delta && charClass(pwd[j + 1]) == cls) j++;
+            int len = j - i + 1;
+            if (len >= 3) {
+                double base = "aAzZ019".indexOf(a) >= 0 ? 4 : cls == 2 ? 10 : 26;
+                if (delta < 0) base *= 2;
+                addMatch(i, j + 1, SEQUENCE, Math.log10(base * len));
+                i = j;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private static int charClass(char c) {
+        if (c >= 'a' && c <= 'z') return 0;
+        if (c >= 'A' && c <= 'Z') return 1;
+        if (c >= '0' && c <= '9') return 2;
+        return -1;
+    }
+
+    private static double binomial(int n, int k) {
+        if (k < 0 || k > n) return 0;
+        double r = 1;
+        for (int i = 1; i <= k; i++) r = r * (n - k + i) / i;
+        return r;
+    }
+
+    private void ensureCapacity(int n) {
+        if (n < capacity) return;
+        capacity = Math.max(n + 1, Math.max(capacity * 2, 64));
+        chars = new char[capacity];
+        matchHead = new int[capacity + 1];
+        subsPrefix = new int[capacity + 1];
+        best = new double[capacity + 1];
+        bestMatch = new int[capacity + 1];
+    }
+}
@@ -0,0 +1,345 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiled scoring policies, one per tenant: the weights, penalties, entropy cutoffs, guess caps
+ * and verdict bands that {@link PasswordScorer#score(PasswordScorer.Features)} used to hard-code,
+ * plus an acceptance rule.
+ *
+ * Policies are declared as tenant-prefixed properties in the file named by
+ * {@code -Dpwdchk.policies=<file>}:
+ * <pre>
+ *   # unset keys fall back to default.*, which falls back to the built-in policy
+ *   default.knownPenalty=25
+ *   acme.minLength=14
+ *   acme.minScore=60
+ *   acme.rejectKnown=true
+ *   acme.bands=30,50,70,90
+ * </pre>
+ * Keys: {@code lengthWeight lengthCap diversityWeight repeatPenalty sequencePenalty knownPenalty
+ * entropyHigh entropyHighBonus entropyMid entropyMidBonus entropyLow entropyLowPenalty guessCaps
+ * bands minScore minLength rejectKnown}. Without a file, or with an empty one, the only tenant is
+ * {@code default} and it scores exactly as the built-in rules did.
+ *
+ * Loading compiles every tenant into one int array per parameter, indexed by tenant, so
+ * {@link #evaluate} scores a scanned password under all policies in a single loop over those
+ * arrays, with the entropy and guess band worked out once. A set is immutable; the file is
+ * polled and a changed file is compiled off to the side and swapped in through a volatile, so
+ * scoring never waits on a reload and a bad edit keeps the previous set.
+ */
+public final class PolicySet {
+
+    /** Tenant index of the {@code default} policy, used by the GUI, batch audit and plain scoring. */
+    public static final int DEFAULT = 0;
+    /** Pseudo tenant index for {@link #appendJson}: every tenant at once. */
+    public static final int ALL = -1;
+
+    // Parameter indices; guessCaps and bands expand to four slots each
+    private static final int LENGTH_WEIGHT = 0, LENGTH_CAP = 1, DIVERSITY_WEIGHT = 2, REPEAT_PENALTY = 3,
+            SEQUENCE_PENALTY = 4, KNOWN_PENALTY = 5, ENTROPY_HIGH = 6, ENTROPY_HIGH_BONUS = 7, ENTROPY_MID = 8,
+            ENTROPY_MID_BONUS = 9, ENTROPY_LOW = 10, ENTROPY_LOW_PENALTY = 11, MIN_SCORE = 12, MIN_LENGTH = 13,
+            REJECT_KNOWN = 14, GUESS_CAPS = 15, BANDS = 19, PARAMS = 23;
+    private static final String[] KEYS = {
+            "lengthWeight", "lengthCap", "diversityWeight", "repeatPenalty", "sequencePenalty", "knownPenalty",
+            "entropyHigh", "entropyHighBonus", "entropyMid", "entropyMidBonus", "entropyLow", "entropyLowPenalty",
+            "minScore", "minLength", "rejectKnown", "guessCaps", "bands"};
+    private static final int[] KEY_SLOT = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, GUESS_CAPS, BANDS};
+    private static final int[] BUILT_IN = {
+            3, 60, 8, 6, 6, 20,
+            60, 15, 45, 8, 28, 6,
+            0, 0, 0,
+            24, 39, 59, 79,  // guess caps below 10^3 / 10^6 / 10^8 / 10^10 guesses
+            25, 40, 60, 80}; // lowest score of Weak / Moderate / Strong / Very Strong
+
+    private static final PolicySet BUILT_IN_SET = new PolicySet(new String[]{"default"}, new int[][]{BUILT_IN}, 0);
+
+    private final String[] tenants;
+    private final int[][] p; // [parameter][tenant]
+    private final long generation;
+
+    private PolicySet(String[] tenants, int[][] byTenant, long generation) {
+        this.tenants = tenants;
+        this.generation = generation;
+        p = new int[PARAMS][tenants.length];
+        for (int t = 0; t < tenants.length; t++)
+            for (int k = 0; k < PARAMS; k++) p[k][t] = byTenant[t][k];
+    }
+
+    // --- Current set and hot reload ---
+
+    private static final class Shared {
+        static final Path FILE = path();
+        static volatile PolicySet current = FILE == null ? BUILT_IN_SET : loadOrBuiltIn(FILE);
+
+        static {
+            if (FILE != null) watch();
+        }
+
+        private static Path path() {
+            String f = System.getProperty("pwdchk.policies");
+            return f == null || f.isEmpty() ? null : Paths.get(f);
+        }
+
+        private static PolicySet loadOrBuiltIn(Path file) {
+            try {
+                return load(file, 1);
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Policies unavailable (" + file + "), using built-in: " + e.getMessage());
+                return BUILT_IN_SET;
+            }
+        }
+
+        // Polls the file's mtime; a reload that fails to parse leaves the current set in place
+        private static void watch() {
+            ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "policy-reload");
+                t.setDaemon(true);
+                return t;
+            });
+            long[] seen = {modified(FILE)};
+            long period = Long.getLong("pwdchk.policies.poll", 2);
+            poller.scheduleWithFixedDelay(() -> {
+                long m = modified(FILE);
+                if (m == seen[0]) return;
+                seen[0] = m;
+                try {
+                    current = load(FILE, current.generation + 1);
+                    System.err.println("Policies reloaded from " + FILE + ": " + String.join(", ", current.tenants));
+                } catch (IOException | IllegalArgumentException e) {
+                    System.err.println("Policy reload failed, keeping previous policies: " + e.getMessage());
+                }
+            }, period, period, TimeUnit.SECONDS);
+        }
+
+        private static long modified(Path file) {
+            try {
+                return Files.getLastModifiedTime(file).toMillis();
+            } catch (IOException e) {
+                return -1;
+            }
+        }
+    }
+
+    /** The live set. Read it once per evaluation; a reload replaces it, never mutates it. */
+    public static PolicySet current() {
+        return Shared.current;
+    }
+
+    /** Built-in policy only: the scoring rules as they were before policies were configurable. */
+    public static PolicySet builtIn() {
+        return BUILT_IN_SET;
+    }
+
+    /** Compiles a policy file; {@code generation} tells successive sets apart (e.g. for caches). */
+    public static PolicySet load(Path file, long generation) throws IOException {
+        Properties props = new Properties();
+        try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            props.load(r);
+        }
+        return compile(props, generation);
+    }
+
+    /**
+     * Compiles tenant-prefixed properties; throws IllegalArgumentException on a bad key or value,
+     * or if the default policy would no longer score a generated max-strength password 100.
+     */
+    public static PolicySet compile(Properties props, long generation) {
+        Map<String, int[]> byName = new LinkedHashMap<>();
+        byName.put("default", BUILT_IN.clone());
+        // default.* first, so the other tenants inherit it whatever the file order
+        List<String> names = new ArrayList<>(props.stringPropertyNames());
+        names.sort(Comparator.comparing((String k) -> !k.startsWith("default.")).thenComparing(k -> k));
+        for (String name : names) {
+            int dot = name.indexOf('.');
+            if (dot <= 0) throw new IllegalArgumentException("Expected <tenant>.<key>: " + name);
+            String tenant = name.substring(0, dot);
+            if (!tenant.matches("[A-Za-z0-9_-]+")) throw new IllegalArgumentException("Bad tenant name: " + tenant);
+            int[] params = byName.computeIfAbsent(tenant, t -> byName.get("default").clone());
+            set(params, name.substring(dot + 1), props.getProperty(name).trim(), name);
+        }
+        PolicySet set = new PolicySet(byName.keySet().toArray(new String[0]), byName.values().toArray(new int[0][]), generation);
+        int generated = set.maxStrengthScore(PasswordGenerator.MIN_MAX_STRENGTH_LENGTH);
+        if (generated < 100)
+            throw new IllegalArgumentException("default policy scores a " + PasswordGenerator.MIN_MAX_STRENGTH_LENGTH
+                    + "-char generated password " + generated + ", not 100; raise lengthCap, the weights or the entropy bonus");
+        return set;
+    }
+
+    // Default-policy score of a PasswordGenerator password of this length: every class, no repeat,
+    // sequence or known password, and far more than 10^10 guesses
+    private int maxStrengthScore(int length) {
+        PasswordScorer.Features f = new PasswordScorer.Features();
+        f.length = length;
+        f.lower = f.upper = f.digit = f.special = true;
+        return score(DEFAULT, f, PasswordScorer.entropy(f), 4);
+    }
+
+    private static void set(int[] params, String key, String value, String name) {
+        int k = Arrays.asList(KEYS).indexOf(key);
+        if (k < 0) throw new IllegalArgumentException("Unknown policy key: " + name);
+        k = KEY_SLOT[k];
+        try {
+            if (k == REJECT_KNOWN) {
+                if (!value.equals("true") && !value.equals("false"))
+                    throw new IllegalArgumentException(name + " must be true or false");
+                params[k] = value.equals("true") ? 1 : 0;
+            } else if (k == GUESS_CAPS || k == BANDS) {
+                String[] parts = value.split(",");
+                if (parts.length != 4) throw new IllegalArgumentException(name + " needs four comma-separated values");
+                for (int i = 0; i < 4; i++) {
+                    params[k + i] = Integer.parseInt(parts[i].trim());
+                    if (i > 0 && params[k + i] < params[k + i - 1])
+                        throw new IllegalArgumentException(name + " must be ascending");
+                }
+            } else {
+                params[k] = Integer.parseInt(value);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number in " + name + ": " + value);
+        }
+    }
+
+    // --- Queries ---
+
+    public int size() {
+        return tenants.length;
+    }
+
+    public String tenant(int index) {
+        return tenants[index];
+    }
+
+    /** Index of the named tenant, or -1. */
+    public int indexOf(String tenant) {
+        for (int t = 0; t < tenants.length; t++) if (tenants[t].equals(tenant)) return t;
+        return -1;
+    }
+
+    public long generation() {
+        return generation;
+    }
+
+    /** Score of a scanned password under one tenant's policy. */
+    public int score(int tenant, PasswordScorer.Features f, double entropy) {
+        return score(tenant, f, entropy, guessBand(f.guessesLog10));
+    }
+
+    /** Verdict index (see {@link PasswordScorer#verdict(int)}) of {@code score} under a tenant's bands. */
+    public int verdictOrdinal(int tenant, int score) {
+        int v = 0;
+        while (v < 4 && score >= p[BANDS + v][tenant]) v++;
+        return v;
+    }
+
+    /** Whether a password with this score and features passes a tenant's acceptance rule. */
+    public boolean accepts(int tenant, PasswordScorer.Features f, int score) {
+        return score >= p[MIN_SCORE][tenant] && f.length >= p[MIN_LENGTH][tenant]
+                && (p[REJECT_KNOWN][tenant] == 0 || !(f.common || f.breaches > 0));
+    }
+
+    /** Per-tenant results of {@link #evaluate}, indexed by tenant; reusable across sets. */
+    public static final class Results {
+        public int[] scores = new int[4];
+        public byte[] verdicts = new byte[4];
+        public boolean[] accepted = new boolean[4];
+        public PolicySet policies;
+
+        void ensure(int n) {
+            if (scores.length >= n) return;
+            scores = new int[n];
+            verdicts = new byte[n];
+            accepted = new boolean[n];
+        }
+    }
+
+    /** Scores a scanned password under every tenant in one pass over the compiled arrays. */
+    public Results evaluate(PasswordScorer.Features f, Results out) {
+        long t0 = Metrics.start();
+        out.ensure(tenants.length);
+        out.policies = this;
+        int[] scores = out.scores;
+        byte[] verdicts = out.verdicts;
+        boolean[] accepted = out.accepted;
+        double entropy = PasswordScorer.strengthBits(f);
+        int band = guessBand(f.guessesLog10);
+        for (int t = 0; t < tenants.length; t++) {
+            int s = score(t, f, entropy, band);
+            scores[t] = s;
+            verdicts[t] = (byte) verdictOrdinal(t, s);
+            accepted[t] = accepts(t, f, s);
+        }
+        Metrics.stop(Metrics.SCORE, t0);
+        return out;
+    }
+
+    /**
+     * Appends the JSON result for a scanned password: the {@link ScoreCache.Entry#appendJson} fields
+     * scored under {@code tenant} plus {@code "tenant"} and {@code "accepted"}, or for {@link #ALL}
+     * the default-policy fields plus {@code "policies":{"<tenant>":{"score","verdict","accepted"},..}}.
+     * Returns whether the password is accepted (by every tenant, for {@link #ALL}).
+     */
+    public boolean appendJson(StringBuilder json, PasswordScorer.Features f, int tenant,
+                              ScoreCache.Entry scratch, Results results) {
+        int scoreTenant = tenant == ALL ? DEFAULT : tenant;
+        // one timed scoring per request: evaluate() already scores the default tenant for ALL
+        if (tenant == ALL) scratch.score = evaluate(f, results).scores[DEFAULT];
+        else scratch.score = PasswordScorer.score(f, this, scoreTenant);
+        scratch.codes = PasswordScorer.suggestionCodes(f, scratch.score);
+        scratch.breaches = f.breaches;
+        scratch.guessesLog10 = f.guessesLog10;
+        scratch.appendJson(json, PasswordScorer.verdict(verdictOrdinal(scoreTenant, scratch.score)))
+                .setLength(json.length() - 1); // reopen the object
+        if (tenant != ALL) {
+            boolean ok = accepts(tenant, f, scratch.score);
+            json.append(",\"tenant\":\"").append(tenants[tenant]).append("\",\"accepted\":").append(ok).append('}');
+            return ok;
+        }
+        boolean all = true;
+        json.append(",\"policies\":{");
+        for (int t = 0; t < tenants.length; t++) {
+            if (t > 0) json.append(',');
+            json.append('"').append(tenants[t]).append("\":{\"score\":").append(results.scores[t])
+                    .append(",\"verdict\":\"").append(PasswordScorer.verdict(results.verdicts[t]))
+                    .append("\",\"accepted\":").append(results.accepted[t]).append('}');
+            all &= results.accepted[t];
+        }
+        json.append("}}");
+        return all;
+    }
+
+    private int score(int t, PasswordScorer.Features f, double entropy, int band) {
+        int[][] p = this.p;
+        int score = Math.min(f.length * p[LENGTH_WEIGHT][t], p[LENGTH_CAP][t]);
+        score += f.diversity() * p[DIVERSITY_WEIGHT][t];
+
+        // penalties
+        if (f.repeat) score -= p[REPEAT_PENALTY][t];
+        if (f.sequence) score -= p[SEQUENCE_PENALTY][t];
+        if (f.common || f.breaches > 0) score -= p[KNOWN_PENALTY][t]; // known password, counted once
+
+        // entropy influence
+        if (entropy > p[ENTROPY_HIGH][t]) score += p[ENTROPY_HIGH_BONUS][t];
+        else if (entropy > p[ENTROPY_MID][t]) score += p[ENTROPY_MID_BONUS][t];
+        else if (entropy < p[ENTROPY_LOW][t]) score -= p[ENTROPY_LOW_PENALTY][t];
+
+        int cap = band < 4 ? p[GUESS_CAPS + band][t] : 100;
+        return Math.max(0, Math.min(score, cap));
+    }
+
+    // zxcvbn's 10^3 / 10^6 / 10^8 / 10^10 guess bands; 4 = uncapped
+    private static int guessBand(double guessesLog10) {
+        if (guessesLog10 < 3) return 0;
+        if (guessesLog10 < 6) return 1;
+        if (guessesLog10 < 8) return 2;
+        if (guessesLog10 < 10) return 3;
+        return 4;
+    }
+}
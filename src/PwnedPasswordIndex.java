@@ -0,0 +1,252 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Offline Pwned Passwords (HIBP) breach counts.
+ *
+ * The {@code HASH:COUNT} text dump (SHA-1, ordered by hash) is converted once into a fixed-width
+ * binary file with a 2^20-entry prefix table. A lookup hashes the password, reads its bucket
+ * bounds from the table and binary-searches the few kilobytes of records in that bucket, all
+ * through read-only mappings.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   "PWNDIDX1" | count:long
+ *   prefix table: long[2^20 + 1]    (first record index of each 20-bit SHA-1 prefix)
+ *   records:      count x 22 bytes  (SHA-1 bytes 2..19, breach count:int)
+ * </pre>
+ */
+public final class PwnedPasswordIndex {
+
+    private static final byte[] MAGIC = "PWNDIDX1".getBytes(StandardCharsets.US_ASCII);
+    private static final int PREFIX_BITS = 20;
+    private static final int BUCKETS = 1 << PREFIX_BITS;
+    private static final int HEADER = 16;
+    private static final long TABLE_BYTES = (BUCKETS + 1) * 8L;
+    private static final int SUFFIX = 18;              // SHA-1 bytes 2..19
+    private static final int RECORD = SUFFIX + 4;
+    private static final int RECORDS_PER_CHUNK = (1 << 30) / RECORD;
+
+    private final MappedByteBuffer table;
+    private final MappedByteBuffer[] chunks;
+    private final long count;
+
+    private PwnedPasswordIndex(FileChannel ch) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(HEADER);
+        ch.read(head, 0);
+        byte[] magic = Arrays.copyOf(head.array(), MAGIC.length);
+        if (!Arrays.equals(magic, MAGIC)) throw new IOException("Not a Pwned Passwords index");
+        count = head.getLong(8);
+        if (HEADER + TABLE_BYTES + count * RECORD > ch.size()) throw new IOException("Truncated Pwned Passwords index");
+        table = ch.map(FileChannel.MapMode.READ_ONLY, HEADER, TABLE_BYTES);
+        int n = (int) ((count + RECORDS_PER_CHUNK - 1) / RECORDS_PER_CHUNK);
+        chunks = new MappedByteBuffer[n];
+        long base = HEADER + TABLE_BYTES;
+        for (int i = 0; i < n; i++) {
+            long first = (long) i * RECORDS_PER_CHUNK;
+            long records = Math.min(RECORDS_PER_CHUNK, count - first);
+            chunks[i] = ch.map(FileChannel.MapMode.READ_ONLY, base + first * RECORD, records * RECORD);
+        }
+    }
+
+    public static PwnedPasswordIndex open(Path index) throws IOException {
+        try (FileChannel ch = FileChannel.open(index, StandardOpenOption.READ)) {
+            return new PwnedPasswordIndex(ch);
+        }
+    }
+
+    private static final class Shared {
+        static final PwnedPasswordIndex INSTANCE = load();
+
+        private static PwnedPasswordIndex load() {
+            String path = System.getProperty("pwdchk.pwned");
+            if (path == null || path.isEmpty()) return null;
+            try {
+                return open(Paths.get(path));
+            } catch (IOException e) {
+                System.err.println("Pwned Passwords index unavailable (" + path + "): " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    /** Index named by the {@code pwdchk.pwned} system property, or null if none is configured. */
+    public static PwnedPasswordIndex shared() {
+        return Shared.INSTANCE;
+    }
+
+    public long size() {
+        return count;
+    }
+
+    /** Per-thread SHA-1 state and UTF-8 scratch, so lookups allocate nothing once warm. */
+    private static final class Hasher {
+        final MessageDigest sha1;
+        final byte[] digest = new byte[20];
+        byte[] utf8 = new byte[256];
+
+        Hasher() {
+            try {
+                sha1 = MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static final ThreadLocal<Hasher> HASHER = ThreadLocal.withInitial(Hasher::new);
+
+    /** Number of times the password appears in the breach corpus (0 if absent). Case-sensitive. */
+    public long breachCount(CharSequence pwd) {
+        Hasher h = HASHER.get();
+        int len = encodeUtf8(pwd, h);
+        h.sha1.update(h.utf8, 0, len);
+        Arrays.fill(h.utf8, 0, len, (byte) 0); // don't leave the password's bytes in the per-thread scratch
+        try {
+            h.sha1.digest(h.digest, 0, 20);
+        } catch (java.security.DigestException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] d = h.digest;
+        int prefix = ((d[0] & 0xff) << 12) | ((d[1] & 0xff) << 4) | ((d[2] & 0xff) >>> 4);
+        long lo = table.getLong(prefix * 8);
+        long hi = table.getLong((prefix + 1) * 8) - 1;
+        while (lo <= hi) {
+            long mid = (lo + hi) >>> 1;
+            MappedByteBuffer chunk = chunks[(int) (mid / RECORDS_PER_CHUNK)];
+            int off = (int) (mid % RECORDS_PER_CHUNK) * RECORD;
+            int cmp = compareSuffix(chunk, off, d);
+            if (cmp < 0) lo = mid + 1;
+            else if (cmp > 0) hi = mid - 1;
+            else return chunk.getInt(off + SUFFIX) & 0xffffffffL;
+        }
+        return 0;
+    }
+
+    private static int compareSuffix(MappedByteBuffer chunk, int off, byte[] digest) {
+        for (int i = 0; i < SUFFIX; i++) {
+            int a = chunk.get(off + i) & 0xff, b = digest[i + 2] & 0xff;
+            if (a != b) return a - b;
+        }
+        return 0;
+    }
+
+    // Same bytes as String.getBytes(UTF_8), including '?' for unpaired surrogates
+    private static int encodeUtf8(CharSequence s, Hasher h) {
+        int n = s.length();
+        if (h.utf8.length < n * 3) h.utf8 = new byte[n * 3];
+        byte[] b = h.utf8;
+        int p = 0;
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                b[p++] = (byte) c;
+            } else if (c < 0x800) {
+                b[p++] = (byte) (0xc0 | (c >> 6));
+                b[p++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                b[p++] = (byte) (0xf0 | (cp >> 18));
+                b[p++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                b[p++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                b[p++] = (byte) (0x80 | (cp & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                b[p++] = '?';
+            } else {
+                b[p++] = (byte) (0xe0 | (c >> 12));
+                b[p++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                b[p++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        return p;
+    }
+
+    // --- One-time converter ---
+
+    /**
+     * Converts a Pwned Passwords SHA-1 dump ({@code HEX40:COUNT} per line, ascending by hash)
+     * into the binary index. Streams the dump once; memory use is the 8 MB prefix table.
+     */
+    public static long convert(Path dump, Path index) throws IOException {
+        long[] starts = new long[BUCKETS + 1];
+        long n = 0;
+        byte[] prev = null;
+        try (BufferedReader r = Files.newBufferedReader(dump, StandardCharsets.US_ASCII);
+             FileChannel out = FileChannel.open(index, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.position(HEADER + TABLE_BYTES);
+            ByteBuffer buf = ByteBuffer.allocateDirect(RECORD * 48_000);
+            byte[] hash = new byte[20];
+            String line;
+            long lineNo = 0;
+            while ((line = r.readLine()) != null) {
+                lineNo++;
+                if (line.isEmpty()) continue;
+                int colon = line.indexOf(':');
+                if (colon != 40) throw new IOException("Line " + lineNo + ": expected HASH:COUNT");
+                for (int i = 0; i < 20; i++)
+                    hash[i] = (byte) ((hexDigit(line.charAt(2 * i), lineNo) << 4) | hexDigit(line.charAt(2 * i + 1), lineNo));
+                if (prev != null && Arrays.compareUnsigned(prev, hash) >= 0)
+                    throw new IOException("Line " + lineNo + ": dump is not sorted by hash (use the 'ordered by hash' download)");
+                long breaches = Long.parseLong(line.substring(colon + 1).trim());
+
+                int prefix = ((hash[0] & 0xff) << 12) | ((hash[1] & 0xff) << 4) | ((hash[2] & 0xff) >>> 4);
+                starts[prefix + 1]++;
+                if (buf.remaining() < RECORD) drain(out, buf);
+                buf.put(hash, 2, SUFFIX).putInt((int) Math.min(breaches, 0xffffffffL));
+                prev = prev == null ? hash.clone() : copyInto(prev, hash);
+                n++;
+            }
+            drain(out, buf);
+
+            for (int b = 0; b < BUCKETS; b++) starts[b + 1] += starts[b];
+            ByteBuffer head = ByteBuffer.allocate((int) (HEADER + TABLE_BYTES));
+            head.put(MAGIC).putLong(n);
+            for (long s : starts) head.putLong(s);
+            head.flip();
+            long pos = 0;
+            while (head.hasRemaining()) pos += out.write(head, pos);
+        }
+        return n;
+    }
+
+    private static byte[] copyInto(byte[] dst, byte[] src) {
+        System.arraycopy(src, 0, dst, 0, src.length);
+        return dst;
+    }
+
+    private static int hexDigit(char c, long lineNo) throws IOException {
+        int d = Character.digit(c, 16);
+        if (d < 0) throw new IOException("Line " + lineNo + ": bad hex digit '" + c + "'");
+        return d;
+    }
+
+    private static void drain(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && args[0].equals("convert")) {
+            long t0 = System.nanoTime();
+            long n = convert(Paths.get(args[1]), Paths.get(args[2]));
+            System.err.printf("Converted %,d hashes in %.1f s%n", n, (System.nanoTime() - t0) / 1e9);
+        } else if (args.length >= 3 && args[0].equals("check")) {
+            PwnedPasswordIndex idx = open(Paths.get(args[1]));
+            for (int i = 2; i < args.length; i++)
+                System.out.println(args[i] + ": " + idx.breachCount(args[i]));
+        } else {
+            System.err.println("Usage: java PwnedPasswordIndex convert <pwned-passwords-sha1.txt> <index.bin>");
+            System.err.println("       java PwnedPasswordIndex check <index.bin> <password>...");
+            System.exit(2);
+        }
+    }
+}
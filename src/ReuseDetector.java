@@ -0,0 +1,276 @@
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Flags password reuse across a stream of records: each new password is matched against all
+ * earlier ones for an exact or near-identical relative ("Summer2023!" / "summer2024!").
+ *
+ * Each password gets a MinHash signature over its case-folded character 3-grams (32 hashes),
+ * split into 16 bands of 2 rows for locality-sensitive hashing. Each band is an open-addressed
+ * multimap over a flat int array, and only records sharing at least two bands with the new password are
+ * checked, with a banded, case-insensitive Levenshtein distance. Two passwords sharing half their
+ * 3-grams meet in two bands with probability ~94%, two thirds ~99.8%. A bucket stops taking
+ * members once it holds {@link #BUCKET_CAP}, which keeps lookups bounded for very popular
+ * families, so a stream costs close to linear time. Memory is 170 to 340 bytes per record plus, when the detector keeps its own
+ * copy of the text, two bytes per char.
+ *
+ * Records are numbered from 0 in {@link #add} order. Not thread-safe.
+ */
+public final class ReuseDetector {
+
+    private static final int BANDS = 16;
+    private static final int ROWS = 2;
+    private static final int HASHES = BANDS * ROWS;
+    static final int BUCKET_CAP = 16;
+
+    // Per-hash multipliers / offsets for h_i(x) = (a_i * x + b_i) >>> 32 over a 64-bit gram hash
+    private static final long[] A = new long[HASHES];
+    private static final long[] B = new long[HASHES];
+
+    static {
+        long s = 0x9e3779b97f4a7c15L;
+        for (int i = 0; i < HASHES; i++) {
+            A[i] = mix(s += 0x9e3779b97f4a7c15L) | 1;
+            B[i] = mix(s += 0x9e3779b97f4a7c15L);
+        }
+    }
+
+    private final IntFunction<CharSequence> text; // null: own copy in chars / ends
+
+    // One open-addressed multimap per band, linear probing, at most 3/4 full: tables[b][2i] is a key
+    // (0 = empty slot) and tables[b][2i + 1] its record, so a probe reads one cache line. Separate
+    // tables keep every array small enough to grow without a long copy.
+    private final int[][] tables = new int[BANDS][2 << 10];
+    private int used; // entries per table at most; each record adds at most one to each
+
+    private char[] chars;
+    private int[] ends;    // own copy: record r is chars[ends[r - 1], ends[r])
+    private int size;
+
+    private final int[] sig = new int[HASHES];
+    private final int[] bandKeys = new int[BANDS];
+    private final int[] candidates = new int[BANDS * BUCKET_CAP]; // a chain holds at most BUCKET_CAP per key
+    private int[] row = new int[64]; // Levenshtein scratch
+
+    /** Detector that keeps its own copy of every password (batch audits). */
+    public ReuseDetector() {
+        this(null);
+        chars = new char[1 << 12];
+        ends = new int[1024];
+    }
+
+    /**
+     * Detector that stores no text: {@code text.apply(id)} returns record {@code id}'s password,
+     * or null once the caller has dropped it (such records are never reported).
+     */
+    public ReuseDetector(IntFunction<CharSequence> text) {
+        this.text = text;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Id of the earlier record most similar to {@code pwd} (smallest distance, then oldest), or -1
+     * if there is none; {@code pwd} is not added.
+     */
+    public int find(CharSequence pwd) {
+        signature(pwd);
+        return best(pwd);
+    }
+
+    /** {@link #find}, then adds {@code pwd} as record {@link #size()}. */
+    public int add(CharSequence pwd) {
+        signature(pwd);
+        int match = best(pwd);
+        int id = size++;
+        if (chars != null) store(id, pwd);
+        if (++used * 8L > tables[0].length * 3L) {
+            for (int b = 0; b < BANDS; b++) tables[b] = rehash(tables[b]);
+        }
+        for (int b = 0; b < BANDS; b++) insert(tables[b], bandKeys[b], id);
+        return match;
+    }
+
+    /** Numbers the next record without indexing it (it is never reported), keeping later ids aligned. */
+    public int skip() {
+        int id = size++;
+        if (chars != null) store(id, "");
+        return id;
+    }
+
+    /** Whether two passwords count as reuse: case-insensitive edit distance at most a quarter of the longer. */
+    public static boolean similar(CharSequence a, CharSequence b) {
+        return distance(a, b, maxDistance(a, b), new int[64]) >= 0;
+    }
+
+    /** Drops every record and wipes the stored text. */
+    public void clear() {
+        for (int[] t : tables) Arrays.fill(t, 0);
+        used = size = 0;
+        if (chars != null) Arrays.fill(chars, '\0');
+    }
+
+    // --- Signature and bucketing ---
+
+    private void signature(CharSequence pwd) {
+        Arrays.fill(sig, Integer.MAX_VALUE);
+        int n = pwd.length();
+        if (n < 3) {
+            long g = 0;
+            for (int i = 0; i < n; i++) g = g << 16 | Character.toLowerCase(pwd.charAt(i));
+            minHash(g | (long) n << 48);
+        } else {
+            long c0 = Character.toLowerCase(pwd.charAt(0)), c1 = Character.toLowerCase(pwd.charAt(1));
+            for (int i = 2; i < n; i++) {
+                long c2 = Character.toLowerCase(pwd.charAt(i));
+                minHash(c0 << 32 | c1 << 16 | c2 | 3L << 48);
+                c0 = c1;
+                c1 = c2;
+            }
+        }
+        for (int b = 0; b < BANDS; b++) {
+            int k = (int) mix(((long) sig[2 * b] << 32 | sig[2 * b + 1] & 0xffffffffL) + b);
+            bandKeys[b] = k == 0 ? 1 : k;
+        }
+    }
+
+    private void minHash(long gram) {
+        long h = mix(gram);
+        for (int i = 0; i < HASHES; i++) {
+            int v = (int) ((A[i] * h + B[i]) >>> 32) & 0x7fffffff;
+            if (v < sig[i]) sig[i] = v;
+        }
+    }
+
+    private int best(CharSequence pwd) {
+        // Every record sharing a band, then sorted so each record's bands are adjacent
+        int n = 0;
+        for (int b = 0; b < BANDS; b++) {
+            int[] t = tables[b];
+            int key = bandKeys[b], mask = t.length - 2;
+            for (int i = slot(key, t.length); t[i] != 0; i = (i + 2) & mask)
+                if (t[i] == key) candidates[n++] = t[i + 1];
+        }
+        Arrays.sort(candidates, 0, n);
+
+        int best = -1, bestDistance = Integer.MAX_VALUE;
+        for (int c = 0; c < n; ) {
+            int id = candidates[c];
+            int shared = 0;
+            for (; c < n && candidates[c] == id; c++) shared++;
+            // unrelated short passwords share 3-grams often enough to meet in one band; two
+            // bands are rare for them and near-certain for real variants
+            if (shared < 2) continue;
+            CharSequence other = textOf(id);
+            if (other == null) continue;
+            row = growRow(row, other.length());
+            int d = distance(pwd, other, Math.min(maxDistance(pwd, other), bestDistance), row);
+            if (d >= 0 && d < bestDistance) { // ids ascend, so a tie keeps the oldest
+                best = id;
+                bestDistance = d;
+            }
+        }
+        return best;
+    }
+
+    // Skips full buckets; the record still finds, and is found through, its other bands
+    private static void insert(int[] t, int key, int id) {
+        int mask = t.length - 2;
+        int members = 0;
+        int i = slot(key, t.length);
+        for (; t[i] != 0; i = (i + 2) & mask)
+            if (t[i] == key && ++members == BUCKET_CAP) return;
+        t[i] = key;
+        t[i + 1] = id;
+    }
+
+    // Even index of the first slot for key in a table of the given length
+    private static int slot(int key, int length) {
+        return (key * 0x9e3779b9) >>> Integer.numberOfLeadingZeros(length / 2 - 1) << 1;
+    }
+
+    // Twice the slots; each bucket keeps its members in insertion order
+    private static int[] rehash(int[] old) {
+        int[] t = new int[old.length * 2];
+        int mask = t.length - 2;
+        for (int j = 0; j < old.length; j += 2) {
+            if (old[j] == 0) continue;
+            int i = slot(old[j], t.length);
+            while (t[i] != 0) i = (i + 2) & mask;
+            t[i] = old[j];
+            t[i + 1] = old[j + 1];
+        }
+        return t;
+    }
+
+    // --- Text ---
+
+    private CharSequence textOf(int id) {
+        if (text != null) return text.apply(id);
+        int from = id == 0 ? 0 : ends[id - 1];
+        return java.nio.CharBuffer.wrap(chars, from, ends[id] - from);
+    }
+
+    private void store(int id, CharSequence pwd) {
+        int from = id == 0 ? 0 : ends[id - 1];
+        int n = pwd.length();
+        if (chars.length - from < n) {
+            char[] grown = Arrays.copyOf(chars, Math.max(chars.length * 2, from + n));
+            Arrays.fill(chars, '\0');
+            chars = grown;
+        }
+        for (int i = 0; i < n; i++) chars[from + i] = pwd.charAt(i);
+        if (ends.length <= id) ends = Arrays.copyOf(ends, ends.length * 2);
+        ends[id] = from + n;
+    }
+
+    // --- Distance ---
+
+    private static int maxDistance(CharSequence a, CharSequence b) {
+        return Math.max(a.length(), b.length()) / 4;
+    }
+
+    /**
+     * Case-insensitive Levenshtein distance of {@code a} and {@code b} if it is at most {@code max},
+     * else -1. Only the diagonal band |i - j| <= max is filled; {@code row} needs
+     * {@code b.length() + 2} entries or it is replaced.
+     */
+    static int distance(CharSequence a, CharSequence b, int max, int[] row) {
+        int n = a.length(), m = b.length();
+        if (Math.abs(n - m) > max) return -1;
+        row = growRow(row, m);
+        int big = max + 1;
+        for (int j = 0; j <= m; j++) row[j] = j <= max ? j : big;
+        for (int i = 1; i <= n; i++) {
+            char ca = Character.toLowerCase(a.charAt(i - 1));
+            int from = Math.max(1, i - max), to = Math.min(m, i + max);
+            int diag = row[from - 1];                 // D[i-1][from-1]
+            row[from - 1] = from == 1 && i <= max ? i : big; // D[i][from-1], outside the band unless j = 0
+            int rowMin = row[from - 1];
+            for (int j = from; j <= to; j++) {
+                int up = row[j];                      // D[i-1][j]
+                int cost = ca == Character.toLowerCase(b.charAt(j - 1)) ? 0 : 1;
+                int v = Math.min(diag + cost, Math.min(up, row[j - 1]) + 1);
+                if (v > big) v = big;
+                row[j] = v;
+                diag = up;
+                if (v < rowMin) rowMin = v;
+            }
+            if (to < m) row[to + 1] = big;
+            if (rowMin > max) return -1;
+        }
+        return row[m] <= max ? row[m] : -1;
+    }
+
+    private static int[] growRow(int[] row, int m) {
+        return row.length > m + 1 ? row : new int[Math.max(m + 2, row.length * 2)];
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,255 @@
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, concurrent cache of scoring results, shared by the GUI, the scoring server and the
+ * batch auditor so repeated candidates (retries, re-submits, one leaked list hitting many
+ * accounts) skip the scan and the dictionary / breach / pattern lookups.
+ *
+ * Entries are keyed by SipHash-2-4 of the password under a random per-process key: the cache
+ * holds 64-bit tags, never the password, and the tags are useless outside this process. The
+ * table is 8-way set-associative over flat primitive arrays, with LRU inside each set and one lock
+ * per stripe of sets. Results depend on the dictionaries configured at startup, so only scorers
+ * built with the shared dictionaries ({@code new PasswordScorer()}) should use {@link #shared()}.
+ *
+ * Size with {@code -Dpwdchk.cache.entries=<n>} (default 65,536; 0 disables the shared cache).
+ */
+public final class ScoreCache {
+
+    /** A cached result: everything callers render, nothing derived from the password text. */
+    public static final class Entry {
+        public int score;
+        public int codes;          // PasswordScorer.SUGGEST_* bits
+        public long breaches;
+        public double guessesLog10;
+
+        /** Appends {@code {"score","verdict","breaches","guessesLog10","suggestionCodes","suggestions"}}. */
+        public StringBuilder appendJson(StringBuilder json) {
+            return appendJson(json, PasswordScorer.classify(score));
+        }
+
+        /** As {@link #appendJson(StringBuilder)}, with the verdict given (e.g. from a tenant's bands). */
+        public StringBuilder appendJson(StringBuilder json, String verdict) {
+            json.append("{\"score\":").append(score)
+                    .append(",\"verdict\":\"").append(verdict)
+                    .append("\",\"breaches\":").append(breaches)
+                    .append(",\"guessesLog10\":").append(Math.round(guessesLog10 * 100) / 100.0)
+                    .append(",\"suggestionCodes\":").append(codes)
+                    .append(",\"suggestions\":[");
+            boolean first = true;
+            for (int bit = 0; bit < 31; bit++) {
+                if ((codes & (1 << bit)) == 0) continue;
+                if (!first) json.append(',');
+                appendString(json, PasswordScorer.suggestionText(1 << bit));
+                first = false;
+            }
+            return json.append("]}");
+        }
+
+        private static void appendString(StringBuilder json, String s) {
+            json.append('"');
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c == '"' || c == '\\') json.append('\\').append(c);
+                else if (c < 0x20) json.append(String.format("\\u%04x", (int) c));
+                else json.append(c);
+            }
+            json.append('"');
+        }
+    }
+
+    private static final int WAYS = 8;
+    private static final int STRIPES = 64;
+
+    private final long k0, k1;
+    private final int setMask;
+    // A set's tags, stamps and payloads are each contiguous, so a lookup touches about three
+    // cache lines instead of one per column.
+    private final long[] tags;       // 0 = empty slot (a real tag of 0 is remapped to 1)
+    private final int[] used;        // LRU stamp per slot, compared wrap-safely
+    private final long[] data;       // two per slot: (score | codes << 8) << 32 | guess bits, breaches
+    private final Object[] locks = new Object[STRIPES];
+    private final int[] clocks = new int[STRIPES]; // LRU clock per stripe, guarded by its lock
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ScoreCache(int entries) {
+        int sets = Integer.highestOneBit(Math.max(WAYS, entries) / WAYS);
+        setMask = sets - 1;
+        int slots = sets * WAYS;
+        tags = new long[slots];
+        used = new int[slots];
+        data = new long[slots * 2];
+        for (int i = 0; i < STRIPES; i++) locks[i] = new Object();
+        SecureRandom rnd = new SecureRandom();
+        k0 = rnd.nextLong();
+        k1 = rnd.nextLong();
+    }
+
+    private static final class Shared {
+        static final ScoreCache INSTANCE = load();
+
+        private static ScoreCache load() {
+            int entries = Integer.getInteger("pwdchk.cache.entries", 1 << 16);
+            return entries > 0 ? new ScoreCache(entries) : null;
+        }
+    }
+
+    /** Process-wide cache sized by {@code pwdchk.cache.entries}, or null if disabled. */
+    public static ScoreCache shared() {
+        return Shared.INSTANCE;
+    }
+
+    public int capacity() {
+        return tags.length;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Scores {@code pwd} with {@code scorer} unless a result is cached; fills and returns
+     * {@code out}.
+     */
+    public Entry score(PasswordScorer scorer, CharSequence pwd, Entry out) {
+        return score(scorer, pwd, PolicySet.current(), out);
+    }
+
+    /** As {@link #score(PasswordScorer, CharSequence, Entry)}, under the default policy of {@code policies}. */
+    public Entry score(PasswordScorer scorer, CharSequence pwd, PolicySet policies, Entry out) {
+        long key = key(pwd, policies);
+        if (get(key, out)) return out;
+        PasswordScorer.Features f = scorer.scan(pwd);
+        fill(f, policies, out);
+        put(key, out);
+        return out;
+    }
+
+    /** Fills {@code out} from a scanned record, scored under the live default policy. */
+    public static Entry fill(PasswordScorer.Features f, Entry out) {
+        return fill(f, PolicySet.current(), out);
+    }
+
+    /** Fills {@code out} from a scanned record, scored under the default policy of {@code policies}. */
+    public static Entry fill(PasswordScorer.Features f, PolicySet policies, Entry out) {
+        out.score = PasswordScorer.score(f, policies, PolicySet.DEFAULT);
+        out.codes = PasswordScorer.suggestionCodes(f, out.score);
+        out.breaches = f.breaches;
+        out.guessesLog10 = f.guessesLog10;
+        return out;
+    }
+
+    /**
+     * Cache key of {@code pwd} scored under {@code policies}: keyed SipHash-2-4 over its UTF-16 code
+     * units, mixed with the policy generation so results from before a reload simply age out.
+     */
+    public long key(CharSequence pwd, PolicySet policies) {
+        long h = sipHash(k0, k1, pwd) ^ policies.generation() * 0x9e3779b97f4a7c15L;
+        return h == 0 ? 1 : h;
+    }
+
+    /** Copies the entry for {@code key} into {@code out}; false on a miss. */
+    public boolean get(long key, Entry out) {
+        int set = (int) (key >>> 32) & setMask;
+        int base = set * WAYS;
+        int stripe = set & (STRIPES - 1);
+        synchronized (locks[stripe]) {
+            for (int i = base; i < base + WAYS; i++) {
+                if (tags[i] != key) continue;
+                used[i] = ++clocks[stripe];
+                long packed = data[2 * i];
+                int sc = (int) (packed >>> 32);
+                out.score = sc & 0xff;
+                out.codes = sc >>> 8;
+                out.guessesLog10 = Float.intBitsToFloat((int) packed);
+                out.breaches = data[2 * i + 1];
+                hits.increment();
+                return true;
+            }
+        }
+        misses.increment();
+        return false;
+    }
+
+    /** Stores {@code e} under {@code key}, evicting the least recently used entry of its set. */
+    public void put(long key, Entry e) {
+        int set = (int) (key >>> 32) & setMask;
+        int base = set * WAYS;
+        int stripe = set & (STRIPES - 1);
+        synchronized (locks[stripe]) {
+            int victim = base;
+            for (int i = base; i < base + WAYS; i++) {
+                if (tags[i] == key || tags[i] == 0) {
+                    victim = i;
+                    break;
+                }
+                if (used[i] - used[victim] < 0) victim = i;
+            }
+            if (tags[victim] != 0 && tags[victim] != key) evictions.increment();
+            tags[victim] = key;
+            used[victim] = ++clocks[stripe];
+            data[2 * victim] = (long) (e.score | e.codes << 8) << 32
+                    | Float.floatToRawIntBits((float) e.guessesLog10) & 0xffffffffL;
+            data[2 * victim + 1] = e.breaches;
+        }
+    }
+
+    public void clear() {
+        for (int set = 0; set <= setMask; set++) {
+            synchronized (locks[set & (STRIPES - 1)]) {
+                java.util.Arrays.fill(tags, set * WAYS, set * WAYS + WAYS, 0);
+            }
+        }
+    }
+
+    // --- SipHash-2-4 over chars, four per 64-bit word (little-endian), length in the top byte ---
+
+    static long sipHash(long k0, long k1, CharSequence s) {
+        long v0 = 0x736f6d6570736575L ^ k0;
+        long v1 = 0x646f72616e646f6dL ^ k1;
+        long v2 = 0x6c7967656e657261L ^ k0;
+        long v3 = 0x7465646279746573L ^ k1;
+        int n = s.length();
+        int i = 0;
+        for (; i + 4 <= n; i += 4) {
+            long m = s.charAt(i) | (long) s.charAt(i + 1) << 16 | (long) s.charAt(i + 2) << 32 | (long) s.charAt(i + 3) << 48;
+            v3 ^= m;
+            for (int r = 0; r < 2; r++) {
+                v0 += v1; v1 = Long.rotateLeft(v1, 13); v1 ^= v0; v0 = Long.rotateLeft(v0, 32);
+                v2 += v3; v3 = Long.rotateLeft(v3, 16); v3 ^= v2;
+                v0 += v3; v3 = Long.rotateLeft(v3, 21); v3 ^= v0;
+                v2 += v1; v1 = Long.rotateLeft(v1, 17); v1 ^= v2; v2 = Long.rotateLeft(v2, 32);
+            }
+            v0 ^= m;
+        }
+        long last = (long) (n * 2 & 0xff) << 56;
+        for (int shift = 0; i < n; i++, shift += 16) last |= (long) s.charAt(i) << shift;
+        v3 ^= last;
+        for (int r = 0; r < 2; r++) {
+            v0 += v1; v1 = Long.rotateLeft(v1, 13); v1 ^= v0; v0 = Long.rotateLeft(v0, 32);
+            v2 += v3; v3 = Long.rotateLeft(v3, 16); v3 ^= v2;
+            v0 += v3; v3 = Long.rotateLeft(v3, 21); v3 ^= v0;
+            v2 += v1; v1 = Long.rotateLeft(v1, 17); v1 ^= v2; v2 = Long.rotateLeft(v2, 32);
+        }
+        v0 ^= last;
+        v2 ^= 0xff;
+        for (int r = 0; r < 4; r++) {
+            v0 += v1; v1 = Long.rotateLeft(v1, 13); v1 ^= v0; v0 = Long.rotateLeft(v0, 32);
+            v2 += v3; v3 = Long.rotateLeft(v3, 16); v3 ^= v2;
+            v0 += v3; v3 = Long.rotateLeft(v3, 21); v3 ^= v0;
+            v2 += v1; v1 = Long.rotateLeft(v1, 17); v1 ^= v2; v2 = Long.rotateLeft(v2, 32);
+        }
+        return v0 ^ v1 ^ v2 ^ v3;
+    }
+}
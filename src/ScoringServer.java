@@ -0,0 +1,309 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.*;
+
+/**
+ * Headless HTTP scoring service on the JDK's built-in server, for signup / reset flows.
+ *
+ * <pre>
+ *   POST /score   body: one password (UTF-8)            -> {"score":..,"verdict":..,...}
+ *   POST /batch   body: passwords, one per line          -> [{...}, ...] in input order
+ *   GET  /health                                         -> ok
+ * </pre>
+ * Both POST endpoints take {@code ?tenant=<name>} to score under that tenant's {@link PolicySet}
+ * policy (adding {@code "tenant"} and {@code "accepted"}), or {@code ?tenant=*} for every policy
+ * from the same scan (adding {@code "policies"}); without it they use the default policy and the
+ * shared {@link ScoreCache}.
+ * Each request runs on its own virtual thread when the JDK has them (21+), otherwise on a
+ * bounded pool whose full queue makes the accept loop run requests itself. A semaphore caps
+ * requests in flight; beyond it the server answers 503 with {@code Retry-After} instead of
+ * queueing. Scorers and their buffers are pooled, so a request allocates little beyond the
+ * response, and request bodies are wiped once scored. Connections are kept alive, so clients
+ * can send requests back to back on one socket without reconnecting.
+ */
+public final class ScoringServer {
+
+    private static final int MAX_BODY = 1 << 20;     // bytes per request
+    private static final int MAX_BATCH = 10_000;     // passwords per /batch request
+    private static final byte[] HEALTHY = "ok\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EMPTY = new byte[0];
+
+    static {
+        // The JDK server writes headers and body separately; without TCP_NODELAY, Nagle plus delayed
+        // ACKs add ~40 ms to every keep-alive response. Read once when the server classes load.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Semaphore inFlight;
+    private final ConcurrentLinkedQueue<Worker> workers = new ConcurrentLinkedQueue<>();
+
+    public ScoringServer(InetSocketAddress address, int maxInFlight) throws IOException {
+        this.inFlight = new Semaphore(maxInFlight);
+        this.executor = newExecutor(maxInFlight);
+        this.server = HttpServer.create(address, maxInFlight);
+        server.setExecutor(executor);
+        server.createContext("/score", ex -> handle(ex, false));
+        server.createContext("/batch", ex -> handle(ex, true));
+        server.createContext("/health", ex -> {
+            try {
+                respond(ex, 200, "text/plain", HEALTHY, HEALTHY.length);
+            } finally {
+                ex.close();
+            }
+        });
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public InetSocketAddress address() {
+        return server.getAddress();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    // Virtual thread per request on 21+ (looked up reflectively; this code targets 17)
+    private static ExecutorService newExecutor(int maxInFlight) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            int threads = Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(maxInFlight), r -> {
+                        Thread t = new Thread(r, "scoring-server");
+                        t.setDaemon(true);
+                        return t;
+                    }, new ThreadPoolExecutor.CallerRunsPolicy());
+            return pool;
+        }
+    }
+
+    /** A scorer with its request/response scratch; one per concurrent request, recycled. */
+    private static final class Worker {
+        final PasswordScorer scorer = new PasswordScorer();
+        final ScoreCache.Entry scored = new ScoreCache.Entry();
+        final PolicySet.Results results = new PolicySet.Results();
+        final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        byte[] in = new byte[4096];
+        CharBuffer chars = CharBuffer.allocate(4096);
+        final StringBuilder json = new StringBuilder(1024);
+        byte[] out = new byte[4096];
+
+        void wipe(int bodyLength) {
+            Arrays.fill(in, 0, bodyLength, (byte) 0);
+            Arrays.fill(chars.array(), 0, Math.min(bodyLength, chars.capacity()), '\0');
+            chars.clear();
+            json.setLength(0);
+        }
+    }
+
+    private void handle(HttpExchange ex, boolean batch) throws IOException {
+        try {
+            if (!"POST".equals(ex.getRequestMethod())) {
+                ex.getResponseHeaders().set("Allow", "POST");
+                respond(ex, 405, "text/plain", EMPTY, 0);
+                return;
+            }
+            PolicySet policies = PolicySet.current(); // one set for the whole request
+            String tenantName = queryParam(ex.getRequestURI().getRawQuery(), "tenant");
+            int tenant = tenantName == null ? PolicySet.DEFAULT
+                    : "*".equals(tenantName) ? PolicySet.ALL : policies.indexOf(tenantName);
+            if (tenant == -1 && !"*".equals(tenantName)) {
+                byte[] msg = ("unknown tenant: " + tenantName + "\n").getBytes(StandardCharsets.UTF_8);
+                respond(ex, 400, "text/plain", msg, msg.length);
+                return;
+            }
+            if (tenantName == null) policies = null; // default policy through the cache
+            if (!inFlight.tryAcquire()) {
+                ex.getResponseHeaders().set("Retry-After", "1");
+                respond(ex, 503, "text/plain", EMPTY, 0);
+                return;
+            }
+            long t = Metrics.start();
+            Worker w = workers.poll();
+            if (w == null) w = new Worker();
+            int body = 0;
+            try {
+                body = readBody(ex.getRequestBody(), w);
+                if (body < 0) {
+                    respond(ex, 413, "text/plain", EMPTY, 0);
+                    return;
+                }
+                CharBuffer chars = decode(w, body);
+                StringBuilder json = w.json;
+                if (!batch) {
+                    int end = chars.limit();
+                    while (end > 0 && (chars.get(end - 1) == '\n' || chars.get(end - 1) == '\r')) end--;
+                    chars.limit(end);
+                    appendResult(json, w, chars, policies, tenant);
+                    json.append('\n');
+                } else if (!appendBatch(json, w, chars, policies, tenant)) {
+                    respond(ex, 413, "text/plain", EMPTY, 0);
+                    return;
+                }
+                int n = encode(w);
+                respond(ex, 200, "application/json", w.out, n);
+            } finally {
+                w.wipe(body);
+                workers.offer(w);
+                inFlight.release();
+                Metrics.stop(Metrics.REQUEST, t);
+            }
+        } finally {
+            ex.close();
+        }
+    }
+
+    // Reads the whole body into w.in; returns its length, or -1 if it exceeds MAX_BODY
+    private static int readBody(InputStream in, Worker w) throws IOException {
+        int n = 0;
+        while (true) {
+            if (n == w.in.length) {
+                if (n >= MAX_BODY) return in.read() < 0 ? n : -1;
+                byte[] grown = Arrays.copyOf(w.in, Math.min(MAX_BODY, n * 2));
+                Arrays.fill(w.in, (byte) 0);
+                w.in = grown;
+            }
+            int r = in.read(w.in, n, w.in.length - n);
+            if (r < 0) return n;
+            n += r;
+        }
+    }
+
+    private static CharBuffer decode(Worker w, int length) {
+        if (w.chars.capacity() < length) {
+            Arrays.fill(w.chars.array(), '\0');
+            w.chars = CharBuffer.allocate(length);
+        }
+        CharBuffer chars = w.chars;
+        chars.clear();
+        w.decoder.reset();
+        w.decoder.decode(ByteBuffer.wrap(w.in, 0, length), chars, true);
+        w.decoder.flush(chars);
+        chars.flip();
+        return chars;
+    }
+
+    // One result object per line, in order; false if the batch is too large
+    private static boolean appendBatch(StringBuilder json, Worker w, CharBuffer chars, PolicySet policies, int tenant) {
+        int end = chars.limit();
+        int count = 0;
+        json.append('[');
+        for (int start = 0; start < end; ) {
+            int nl = start;
+            while (nl < end && chars.get(nl) != '\n') nl++;
+            int lineEnd = nl > start && chars.get(nl - 1) == '\r' ? nl - 1 : nl;
+            if (nl < end || lineEnd > start) { // skip only the empty tail after a final newline
+                if (++count > MAX_BATCH) return false;
+                if (count > 1) json.append(',');
+                chars.limit(lineEnd).position(start);
+                appendResult(json, w, chars, policies, tenant);
+                chars.limit(end).position(0);
+            }
+            start = nl + 1;
+        }
+        json.append("]\n");
+        return true;
+    }
+
+    // policies == null: default policy through the shared cache
+    private static void appendResult(StringBuilder json, Worker w, CharSequence pwd, PolicySet policies, int tenant) {
+        if (policies != null) {
+            policies.appendJson(json, w.scorer.scan(pwd), tenant, w.scored, w.results);
+            return;
+        }
+        ScoreCache cache = ScoreCache.shared();
+        ScoreCache.Entry e = cache != null ? cache.score(w.scorer, pwd, w.scored)
+                : ScoreCache.fill(w.scorer.scan(pwd), w.scored);
+        e.appendJson(json);
+    }
+
+    private static String queryParam(String rawQuery, String name) {
+        if (rawQuery == null) return null;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name))
+                return java.net.URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+        }
+        return null;
+    }
+
+    // UTF-8 of w.json into w.out, '?' for unpaired surrogates (as String.getBytes); returns the byte count
+    private static int encode(Worker w) {
+        StringBuilder json = w.json;
+        int n = json.length();
+        if (w.out.length < n * 3) w.out = new byte[Math.max(n * 3, w.out.length * 2)];
+        byte[] b = w.out;
+        int p = 0;
+        for (int i = 0; i < n; i++) {
+            char c = json.charAt(i);
+            if (c < 0x80) b[p++] = (byte) c;
+            else if (c < 0x800) {
+                b[p++] = (byte) (0xc0 | (c >> 6));
+                b[p++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(json.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, json.charAt(++i));
+                b[p++] = (byte) (0xf0 | (cp >> 18));
+                b[p++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                b[p++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                b[p++] = (byte) (0x80 | (cp & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                b[p++] = '?';
+            } else {
+                b[p++] = (byte) (0xe0 | (c >> 12));
+                b[p++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                b[p++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        return p;
+    }
+
+    private static void respond(HttpExchange ex, int status, String type, byte[] body, int length) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", type + (type.startsWith("text/") || type.endsWith("json") ? "; charset=utf-8" : ""));
+        ex.getResponseHeaders().set("Cache-Control", "no-store");
+        ex.sendResponseHeaders(status, length == 0 ? -1 : length);
+        if (length > 0) {
+            try (OutputStream os = ex.getResponseBody()) {
+                os.write(body, 0, length);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String host = "127.0.0.1";
+        int port = 8080;
+        int maxInFlight = 256;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--host": host = args[++i]; break;
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--max-in-flight": maxInFlight = Integer.parseInt(args[++i]); break;
+                default:
+                    System.err.println("Usage: java ScoringServer [--host addr] [--port n] [--max-in-flight n]");
+                    System.exit(2);
+            }
+        }
+        ScoringServer s = new ScoringServer(new InetSocketAddress(host, port), maxInFlight);
+        s.start();
+        System.err.println("Scoring server listening on http://" + host + ":" + s.address().getPort()
+                + " (POST /score, POST /batch, GET /health)");
+    }
+}